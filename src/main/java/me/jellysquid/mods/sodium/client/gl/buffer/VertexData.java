@@ -6,11 +6,9 @@ import me.jellysquid.mods.sodium.client.util.NativeBuffer;
 /**
  * Helper type for tagging the vertex format alongside the raw buffer data.
  */
-public record IndexedVertexData(GlVertexFormat<?> vertexFormat,
-                                NativeBuffer vertexBuffer,
-                                NativeBuffer indexBuffer) {
+public record VertexData(GlVertexFormat<?> vertexFormat,
+                         NativeBuffer vertexBuffer) {
     public void delete() {
         this.vertexBuffer.free();
-        this.indexBuffer.free();
     }
 }
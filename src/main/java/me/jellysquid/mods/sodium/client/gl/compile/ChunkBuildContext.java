@@ -4,6 +4,7 @@ import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderCacheLocal;
+import me.jellysquid.mods.sodium.client.world.BlockStateTable;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.world.World;
 
@@ -11,9 +12,10 @@ public class ChunkBuildContext {
     public final ChunkBuildBuffers buffers;
     public final ChunkRenderCacheLocal cache;
 
-    public ChunkBuildContext(World world, ChunkVertexType vertexType, BlockRenderPassManager renderPassManager) {
+    public ChunkBuildContext(World world, BlockStateTable stateTable, ChunkVertexType vertexType,
+                             BlockRenderPassManager renderPassManager) {
         this.buffers = new ChunkBuildBuffers(vertexType, renderPassManager);
-        this.cache = new ChunkRenderCacheLocal(MinecraftClient.getInstance(), world);
+        this.cache = new ChunkRenderCacheLocal(MinecraftClient.getInstance(), world, stateTable);
     }
 
     public void release() {
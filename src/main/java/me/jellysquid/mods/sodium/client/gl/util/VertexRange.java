@@ -0,0 +1,4 @@
+package me.jellysquid.mods.sodium.client.gl.util;
+
+public record VertexRange(int vertexStart, int vertexCount) {
+}
@@ -308,6 +308,13 @@ public class SodiumGameOptionTabs {
                         .setBinding((opts, value) -> opts.performance.alwaysDeferChunkUpdates = value, opts -> opts.performance.alwaysDeferChunkUpdates)
                         .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
                         .build())
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.chunk_update_time_budget.name"))
+                        .setTooltip(Text.translatable("sodium.options.chunk_update_time_budget.tooltip"))
+                        .setControl(o -> new SliderControl(o, 0, 4000, 250, ControlValueFormatter.quantityOrDisabled("\u00B5s", "Off"), false))
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.chunkUpdateTimeBudget = value, opts -> opts.performance.chunkUpdateTimeBudget)
+                        .build())
                 .build()
         );
 
@@ -321,6 +328,33 @@ public class SodiumGameOptionTabs {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_greedy_meshing.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_greedy_meshing.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.useGreedyMeshing = value, opts -> opts.performance.useGreedyMeshing)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_light_only_updates.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_light_only_updates.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.useLightOnlyUpdates = value, opts -> opts.performance.useLightOnlyUpdates)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_mesh_cache.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_mesh_cache.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.useMeshCache = value, opts -> opts.performance.useMeshCache)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setName(Text.translatable("sodium.options.use_fog_occlusion.name"))
                         .setTooltip(Text.translatable("sodium.options.use_fog_occlusion.tooltip"))
@@ -356,14 +390,41 @@ public class SodiumGameOptionTabs {
                         .build()
                 )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
-                        .setName(Text.literal("Use Raster Occlusion Culling"))
-                        .setTooltip(Text.literal("How about you write your own fuc-"))
+                        .setName(Text.translatable("sodium.options.use_raster_occlusion_culling.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_raster_occlusion_culling.tooltip"))
                         .setControl(TickBoxControl::new)
                         .setImpact(OptionImpact.HIGH)
                         .setBinding((opts, value) -> opts.performance.useRasterOcclusionCulling = value, opts -> opts.performance.useRasterOcclusionCulling)
                         .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_incremental_graph_updates.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_incremental_graph_updates.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.useIncrementalGraphUpdates = value, opts -> opts.performance.useIncrementalGraphUpdates)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(SodiumGameOptions.GraphSearchMode.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.graph_search_mode.name"))
+                        .setTooltip(Text.translatable("sodium.options.graph_search_mode.tooltip"))
+                        .setControl(option -> new CyclingControl<>(option, SodiumGameOptions.GraphSearchMode.class))
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.graphSearchMode = value, opts -> opts.performance.graphSearchMode)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName(Text.translatable("sodium.options.use_async_graph_search.name"))
+                        .setTooltip(Text.translatable("sodium.options.use_async_graph_search.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.useAsyncGraphSearch = value, opts -> opts.performance.useAsyncGraphSearch)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
                 .build());
 
         return new OptionTabPage(Text.translatable("sodium.options.pages.performance"), ImmutableList.copyOf(groups));
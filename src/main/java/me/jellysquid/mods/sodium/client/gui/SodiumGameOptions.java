@@ -39,13 +39,20 @@ public class SodiumGameOptions {
     public static class PerformanceSettings {
         public int chunkBuilderThreads = 0;
         public boolean alwaysDeferChunkUpdates = false;
+        public int chunkUpdateTimeBudget = 0;
 
         public boolean animateOnlyVisibleTextures = true;
         public boolean useEntityCulling = true;
         public boolean useParticleCulling = true;
         public boolean useFogOcclusion = true;
         public boolean useBlockFaceCulling = true;
+        public boolean useGreedyMeshing = false;
+        public boolean useLightOnlyUpdates = false;
+        public boolean useMeshCache = false;
         public boolean useRasterOcclusionCulling = true;
+        public boolean useIncrementalGraphUpdates = false;
+        public GraphSearchMode graphSearchMode = GraphSearchMode.SERIAL;
+        public boolean useAsyncGraphSearch = false;
     }
 
     public static class AdvancedSettings {
@@ -89,6 +96,23 @@ public class SodiumGameOptions {
         }
     }
 
+    public enum GraphSearchMode implements TextProvider {
+        SERIAL("sodium.options.graph_search_mode.serial"),
+        PARALLEL("sodium.options.graph_search_mode.parallel"),
+        BITSET("sodium.options.graph_search_mode.bitset");
+
+        private final Text name;
+
+        GraphSearchMode(String name) {
+            this.name = Text.translatable(name);
+        }
+
+        @Override
+        public Text getLocalizedName() {
+            return this.name;
+        }
+    }
+
     public enum GraphicsQuality implements TextProvider {
         DEFAULT("options.gamma.default"),
         FANCY("options.clouds.fancy"),
@@ -180,6 +204,10 @@ public class SodiumGameOptions {
         if (this.advanced.arenaMemoryAllocator == null) {
             this.advanced.arenaMemoryAllocator = ArenaMemoryAllocator.ASYNC;
         }
+
+        if (this.performance.graphSearchMode == null) {
+            this.performance.graphSearchMode = GraphSearchMode.SERIAL;
+        }
     }
 
     private static Path getConfigPath(String name) {
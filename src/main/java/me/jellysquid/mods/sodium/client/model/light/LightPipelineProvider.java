@@ -10,7 +10,11 @@ public class LightPipelineProvider {
     private final EnumMap<LightMode, LightPipeline> lighters = new EnumMap<>(LightMode.class);
 
     public LightPipelineProvider(LightDataAccess cache) {
-        this.lighters.put(LightMode.SMOOTH, new SmoothLightPipeline(cache));
+        this(cache, new SmoothLightPipeline(cache));
+    }
+
+    public LightPipelineProvider(LightDataAccess cache, LightPipeline smoothLighter) {
+        this.lighters.put(LightMode.SMOOTH, smoothLighter);
         this.lighters.put(LightMode.FLAT, new FlatLightPipeline(cache));
     }
 
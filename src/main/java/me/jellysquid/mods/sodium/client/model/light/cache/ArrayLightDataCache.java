@@ -1,9 +1,12 @@
 package me.jellysquid.mods.sodium.client.model.light.cache;
 
 import me.jellysquid.mods.sodium.client.model.light.data.LightDataAccess;
+import me.jellysquid.mods.sodium.client.world.BlockStateTable;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
-import net.minecraft.world.BlockRenderView;
 
 import java.util.Arrays;
 
@@ -16,13 +19,26 @@ public class ArrayLightDataCache extends LightDataAccess {
     private static final int NEIGHBOR_BLOCK_RADIUS = 2;
     private static final int BLOCK_LENGTH = 16 + (NEIGHBOR_BLOCK_RADIUS * 2);
 
+    // The number of visible faces estimated by {@link #prefillIfDense()} above which the whole volume is computed
+    private static final int DENSE_SECTION_THRESHOLD = 1024;
+
     private final long[] light;
 
+    // The generation which each entry was computed in. Entries from older generations are stale, so the cache can be
+    // cleared by starting a new generation instead of overwriting every entry.
+    private final int[] generations;
+    private int generation;
+
+    private final WorldSlice slice;
+    private final BlockPos.Mutable pos = new BlockPos.Mutable();
+
     private int xOffset, yOffset, zOffset;
 
-    public ArrayLightDataCache(BlockRenderView world) {
-        this.world = world;
+    public ArrayLightDataCache(WorldSlice slice) {
+        this.world = slice;
+        this.slice = slice;
         this.light = new long[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH];
+        this.generations = new int[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH];
     }
 
     public void reset(ChunkSectionPos origin) {
@@ -30,7 +46,98 @@ public class ArrayLightDataCache extends LightDataAccess {
         this.yOffset = origin.getMinY() - NEIGHBOR_BLOCK_RADIUS;
         this.zOffset = origin.getMinZ() - NEIGHBOR_BLOCK_RADIUS;
 
-        Arrays.fill(this.light, 0L);
+        // The generations of the entries only need to be cleared when the counter wraps around
+        if (++this.generation == 0) {
+            Arrays.fill(this.generations, 0);
+            this.generation = 1;
+        }
+    }
+
+    /**
+     * Computes the light data of every block in the volume if the origin section is likely to need most of it. The
+     * entries are computed in the same order as the blocks are stored in the slice, which is much cheaper than
+     * computing them one at a time in the order they're requested by the light pipelines.
+     *
+     * The number of visible faces in the origin section is estimated from the number of blocks with a model which
+     * doesn't fill its block, and the number of changes between opaque and non-opaque blocks along each row. Sparse
+     * sections, such as solid stone with a few caves, only request the light data around their few visible faces, so
+     * they're left to compute entries as they're needed.
+     *
+     * This must be called after the slice has been initialized for the section.
+     */
+    public void prefillIfDense() {
+        if (this.estimateVisibleFaces() >= DENSE_SECTION_THRESHOLD) {
+            this.prefill();
+        }
+    }
+
+    private int estimateVisibleFaces() {
+        BlockStateTable table = this.slice.getStateTable();
+
+        int minX = this.xOffset + NEIGHBOR_BLOCK_RADIUS;
+        int minY = this.yOffset + NEIGHBOR_BLOCK_RADIUS;
+        int minZ = this.zOffset + NEIGHBOR_BLOCK_RADIUS;
+
+        int count = 0;
+
+        for (int y = minY; y < minY + 16; y++) {
+            for (int z = minZ; z < minZ + 16; z++) {
+                boolean prevOpaque = false;
+
+                for (int x = minX; x < minX + 16; x++) {
+                    int flags = table.getFlags(this.slice.getBlockStateId(x, y, z));
+                    boolean opaque = (flags & BlockStateTable.OPAQUE_FULL_CUBE) != 0;
+
+                    if (opaque != prevOpaque && x != minX) {
+                        count++;
+                    } else if (!opaque && (flags & (BlockStateTable.HAS_MODEL | BlockStateTable.HAS_FLUID)) != 0) {
+                        count++;
+                    }
+
+                    prevOpaque = opaque;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private void prefill() {
+        long[] light = this.light;
+        int[] generations = this.generations;
+        int generation = this.generation;
+
+        int index = 0;
+
+        for (int y = 0; y < BLOCK_LENGTH; y++) {
+            for (int z = 0; z < BLOCK_LENGTH; z++) {
+                for (int x = 0; x < BLOCK_LENGTH; x++) {
+                    light[index] = this.compute(this.xOffset + x, this.yOffset + y, this.zOffset + z);
+                    generations[index] = generation;
+
+                    index++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The generation of the entries computed since the cache was last reset, which changes with every reset
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    public int getOriginX() {
+        return this.xOffset + NEIGHBOR_BLOCK_RADIUS;
+    }
+
+    public int getOriginY() {
+        return this.yOffset + NEIGHBOR_BLOCK_RADIUS;
+    }
+
+    public int getOriginZ() {
+        return this.zOffset + NEIGHBOR_BLOCK_RADIUS;
     }
 
     private int index(int x, int y, int z) {
@@ -38,20 +145,60 @@ public class ArrayLightDataCache extends LightDataAccess {
         int y2 = y - this.yOffset;
         int z2 = z - this.zOffset;
 
-        return (z2 * BLOCK_LENGTH * BLOCK_LENGTH) + (y2 * BLOCK_LENGTH) + x2;
+        return (y2 * BLOCK_LENGTH * BLOCK_LENGTH) + (z2 * BLOCK_LENGTH) + x2;
     }
 
     @Override
     public long get(int x, int y, int z) {
         int l = this.index(x, y, z);
 
-        long word = this.light[l];
-
-        if (word != 0) {
-            return word;
+        if (this.generations[l] == this.generation) {
+            return this.light[l];
         }
 
+        this.generations[l] = this.generation;
+
         return this.light[l] = this.compute(x, y, z);
     }
 
+    /**
+     * Computes the light data of a block using the properties of its state from the state table of the slice, which
+     * only falls back to computing them from the state if it is position dependent.
+     */
+    @Override
+    protected long compute(int x, int y, int z) {
+        BlockStateTable table = this.slice.getStateTable();
+
+        int id = this.slice.getBlockStateId(x, y, z);
+        int flags = table.getFlags(id);
+
+        if ((flags & BlockStateTable.POSITION_DEPENDENT) != 0) {
+            return super.compute(x, y, z);
+        }
+
+        float ao;
+        boolean em;
+
+        if ((flags & BlockStateTable.EMITS_LIGHT) == 0) {
+            ao = table.getAmbientOcclusion(id);
+            em = (flags & BlockStateTable.EMISSIVE) != 0;
+        } else {
+            ao = 1.0f;
+            em = true;
+        }
+
+        boolean op = (flags & BlockStateTable.TRANSPARENT) != 0;
+        boolean fo = (flags & BlockStateTable.OPAQUE_FULL_CUBE) != 0;
+        boolean fc = (flags & BlockStateTable.FULL_CUBE) != 0;
+
+        int lm = 0;
+
+        if (!fo || em) {
+            BlockState state = table.getState(id);
+            lm = WorldRenderer.getLightmapCoordinates(this.slice, state, this.pos.set(x, y, z));
+        }
+
+        return packAO(ao) | packLM(lm) | packOP(op) | packFO(fo) | packFC(fc) | (1L << 60);
+    }
+
 }
\ No newline at end of file
@@ -183,7 +183,7 @@ class AoFaceData {
         return i & 0xFF;
     }
 
-    private static int calculateCornerBrightness(int a, int b, int c, int d) {
+    static int calculateCornerBrightness(int a, int b, int c, int d) {
         // FIX: Normalize corner vectors correctly to the minimum non-zero value between each one to prevent
         // strange issues
         if ((a == 0) || (b == 0) || (c == 0) || (d == 0)) {
@@ -0,0 +1,176 @@
+package me.jellysquid.mods.sodium.client.model.light.smooth;
+
+import me.jellysquid.mods.sodium.client.model.light.cache.ArrayLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.Arrays;
+
+import static me.jellysquid.mods.sodium.client.model.light.data.LightDataAccess.*;
+
+/**
+ * A smooth light pipeline for chunk sections which shares the light values of block corners between the faces that
+ * meet at them. The light and ambient occlusion of each corner is computed at most once per section and kept in a
+ * grid for each axis, instead of being computed again by each of the (up to four) faces which share the corner.
+ *
+ * The value of a corner is the blend of the four blocks around it in the layer of blocks the faces are exposed to.
+ * This is what {@link AoFaceData} computes for a face whenever its adjacent block isn't an opaque full cube and the
+ * diagonal block of the corner is used, which is the case unless both edges of the corner are occluded. Faces which
+ * don't meet these conditions, or aren't aligned full faces, take the regular per-face path.
+ *
+ * The grid is only valid for the section which the light data cache was last reset for, and its entries are
+ * invalidated along with the entries of the cache.
+ */
+public class SectionSmoothLightPipeline extends SmoothLightPipeline {
+    // The corners of the blocks in a section along each of the axes which lie in a layer
+    private static final int CORNER_LENGTH = 17;
+
+    // The layers which faces of the section's blocks can be exposed to, including those of the neighbouring sections
+    private static final int LAYER_COUNT = 18;
+
+    private static final int AXIS_SIZE = LAYER_COUNT * CORNER_LENGTH * CORNER_LENGTH;
+
+    private final ArrayLightDataCache lightCache;
+
+    private final int[] cornerLight = new int[AXIS_SIZE * 3];
+    private final float[] cornerShade = new float[AXIS_SIZE * 3];
+
+    private final int[] cornerGenerations = new int[AXIS_SIZE * 3];
+    private int generation;
+
+    private final int[] lm = new int[4];
+    private final float[] ao = new float[4];
+
+    public SectionSmoothLightPipeline(ArrayLightDataCache cache) {
+        super(cache);
+
+        this.lightCache = cache;
+    }
+
+    @Override
+    protected void applyAlignedFullFace(AoNeighborInfo neighborInfo, BlockPos pos, Direction dir, QuadLightData out) {
+        if (!this.applyCornerGrid(neighborInfo, pos, dir, out)) {
+            super.applyAlignedFullFace(neighborInfo, pos, dir, out);
+        }
+    }
+
+    private boolean applyCornerGrid(AoNeighborInfo neighborInfo, BlockPos pos, Direction dir, QuadLightData out) {
+        ArrayLightDataCache cache = this.lightCache;
+
+        int relX = pos.getX() - cache.getOriginX();
+        int relY = pos.getY() - cache.getOriginY();
+        int relZ = pos.getZ() - cache.getOriginZ();
+
+        // Models from mods might light quads for blocks outside the section
+        if ((relX | relY | relZ) < 0 || relX >= 16 || relY >= 16 || relZ >= 16) {
+            return false;
+        }
+
+        int adjX = pos.getX() + dir.getOffsetX();
+        int adjY = pos.getY() + dir.getOffsetY();
+        int adjZ = pos.getZ() + dir.getOffsetZ();
+
+        // The face would use the light of the block itself instead of the adjacent block
+        if (unpackFO(cache.get(adjX, adjY, adjZ))) {
+            return false;
+        }
+
+        Direction[] faces = neighborInfo.faces;
+
+        boolean e0op = unpackOP(cache.get(adjX, adjY, adjZ, faces[0]));
+        boolean e1op = unpackOP(cache.get(adjX, adjY, adjZ, faces[1]));
+        boolean e2op = unpackOP(cache.get(adjX, adjY, adjZ, faces[2]));
+        boolean e3op = unpackOP(cache.get(adjX, adjY, adjZ, faces[3]));
+
+        // A corner whose edges are both occluded uses one of its edges instead of its diagonal block
+        if (!(e3op || e0op) || !(e2op || e0op) || !(e2op || e1op) || !(e3op || e1op)) {
+            return false;
+        }
+
+        if (this.generation != cache.getGeneration()) {
+            this.generation = cache.getGeneration();
+
+            // The generation of the cache starts over when its counter wraps around
+            if (this.generation == 1) {
+                Arrays.fill(this.cornerGenerations, 0);
+            }
+        }
+
+        Direction.Axis axis = dir.getAxis();
+
+        // The corners are in the same order as those of AoFaceData
+        this.loadCorner(axis, adjX, adjY, adjZ, faces[0], faces[3], 0);
+        this.loadCorner(axis, adjX, adjY, adjZ, faces[0], faces[2], 1);
+        this.loadCorner(axis, adjX, adjY, adjZ, faces[1], faces[2], 2);
+        this.loadCorner(axis, adjX, adjY, adjZ, faces[1], faces[3], 3);
+
+        neighborInfo.mapCorners(this.lm, this.ao, out.lm, out.br);
+
+        return true;
+    }
+
+    private void loadCorner(Direction.Axis axis, int x, int y, int z, Direction d1, Direction d2, int i) {
+        // The corner of the block between the two directions, at the minimum corner of the cell it is at
+        int cx = x + Math.max(d1.getOffsetX(), 0) + Math.max(d2.getOffsetX(), 0);
+        int cy = y + Math.max(d1.getOffsetY(), 0) + Math.max(d2.getOffsetY(), 0);
+        int cz = z + Math.max(d1.getOffsetZ(), 0) + Math.max(d2.getOffsetZ(), 0);
+
+        int index = this.getCornerIndex(axis, cx, cy, cz);
+
+        if (this.cornerGenerations[index] != this.generation) {
+            this.computeCorner(axis, cx, cy, cz, index);
+        }
+
+        this.lm[i] = this.cornerLight[index];
+        this.ao[i] = this.cornerShade[index];
+    }
+
+    private void computeCorner(Direction.Axis axis, int x, int y, int z, int index) {
+        ArrayLightDataCache cache = this.lightCache;
+
+        // The four blocks around the corner in its layer
+        long w0, w1, w2, w3;
+
+        switch (axis) {
+            case X -> {
+                w0 = cache.get(x, y - 1, z - 1);
+                w1 = cache.get(x, y - 1, z);
+                w2 = cache.get(x, y, z - 1);
+                w3 = cache.get(x, y, z);
+            }
+            case Y -> {
+                w0 = cache.get(x - 1, y, z - 1);
+                w1 = cache.get(x - 1, y, z);
+                w2 = cache.get(x, y, z - 1);
+                w3 = cache.get(x, y, z);
+            }
+            default -> {
+                w0 = cache.get(x - 1, y - 1, z);
+                w1 = cache.get(x - 1, y, z);
+                w2 = cache.get(x, y - 1, z);
+                w3 = cache.get(x, y, z);
+            }
+        }
+
+        // The shade values are multiples of 1/4096, so their sum is exact regardless of the order they're added in
+        this.cornerLight[index] = AoFaceData.calculateCornerBrightness(unpackLM(w0), unpackLM(w1), unpackLM(w2), unpackLM(w3));
+        this.cornerShade[index] = (unpackAO(w0) + unpackAO(w1) + unpackAO(w2) + unpackAO(w3)) * 0.25f;
+        this.cornerGenerations[index] = this.generation;
+    }
+
+    private int getCornerIndex(Direction.Axis axis, int x, int y, int z) {
+        ArrayLightDataCache cache = this.lightCache;
+
+        int relX = x - cache.getOriginX();
+        int relY = y - cache.getOriginY();
+        int relZ = z - cache.getOriginZ();
+
+        // The layer is offset by one, since faces on the minimum side of the section are exposed to the layer below it
+        return switch (axis) {
+            case X -> (((relX + 1) * CORNER_LENGTH) + relY) * CORNER_LENGTH + relZ;
+            case Y -> AXIS_SIZE + (((relY + 1) * CORNER_LENGTH) + relX) * CORNER_LENGTH + relZ;
+            case Z -> (AXIS_SIZE * 2) + (((relZ + 1) * CORNER_LENGTH) + relX) * CORNER_LENGTH + relY;
+        };
+    }
+}
@@ -20,7 +20,8 @@ import net.minecraft.util.math.MathHelper;
  * - Inset block faces are correctly shaded by their neighbors, fixing a number of problems with non-full blocks such as
  *   grass paths (fixes MC-11783 and MC-108621)
  * - Synchronization issues between the main render thread's light engine and chunk build worker threads are corrected
- *   by copying light data alongside block states, fixing a number of inconsistencies in baked chunks (no open issue)
+ *   by reading light data from immutable snapshots which are taken when block states are copied, so the light engine
+ *   can't modify it in the middle of a build, fixing a number of inconsistencies in baked chunks (no open issue)
  *
  * This implementation also includes a significant number of optimizations:
  *
@@ -97,7 +98,7 @@ public class SmoothLightPipeline implements LightPipeline {
      * have two contributing sides.
      * Flags: IS_ALIGNED, !IS_PARTIAL
      */
-    private void applyAlignedFullFace(AoNeighborInfo neighborInfo, BlockPos pos, Direction dir, QuadLightData out) {
+    protected void applyAlignedFullFace(AoNeighborInfo neighborInfo, BlockPos pos, Direction dir, QuadLightData out) {
         AoFaceData faceData = this.getCachedFaceData(pos, dir, true);
         neighborInfo.mapCorners(faceData.lm, faceData.ao, out.lm, out.br);
     }
@@ -18,4 +18,9 @@ public interface ChunkVertexType extends BlittableVertexType<ModelVertexSink>, C
      * @return The scale to be applied to texture coordinates
      */
     float getTextureScale();
+
+    /**
+     * @return The name of the shader define which selects how vertices of this type are decoded
+     */
+    String getShaderDefine();
 }
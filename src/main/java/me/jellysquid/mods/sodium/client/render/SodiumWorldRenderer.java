@@ -311,14 +311,32 @@ public class SodiumWorldRenderer {
     public void onChunkAdded(int x, int z) {
         this.chunkTracker.mark(x, z, ChunkStatus.FLAG_HAS_BLOCK_DATA);
 
+        if (this.renderSectionManager != null) {
+            this.renderSectionManager.onChunkDataChanged(x, z);
+
+            // The blocks of a column which was already loaded may have been replaced. The game reports this through the
+            // same path as light changes, which only schedules light updates for the sections around the column, so
+            // the column and its neighbours are rebuilt here. The faces of the neighbouring columns on their shared
+            // borders are culled against the blocks of this column, so they must be rebuilt as well.
+            this.scheduleRebuildForChunks(x - 1, this.world.getBottomSectionCoord(), z - 1,
+                    x + 1, this.world.getTopSectionCoord() - 1, z + 1, false);
+        }
     }
 
     public void onChunkLightAdded(int x, int z) {
         this.chunkTracker.mark(x, z, ChunkStatus.FLAG_HAS_LIGHT_DATA);
+
+        if (this.renderSectionManager != null) {
+            this.renderSectionManager.onChunkDataChanged(x, z);
+        }
     }
 
     public void onChunkRemoved(int x, int z) {
         this.chunkTracker.remove(x, z);
+
+        if (this.renderSectionManager != null) {
+            this.renderSectionManager.onChunkDataRemoved(x, z);
+        }
     }
 
     public void onChunkRenderUpdated(int x, int y, int z, ChunkRenderData meshBefore, ChunkRenderData meshAfter) {
@@ -411,6 +429,20 @@ public class SodiumWorldRenderer {
         this.renderSectionManager.scheduleRebuild(x, y, z, important);
     }
 
+    /**
+     * Schedules light updates for all chunks in the specified chunk region. The blocks of these chunks must not have
+     * changed, otherwise a rebuild should be scheduled instead.
+     */
+    public void scheduleLightUpdateForChunks(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkY = minY; chunkY <= maxY; chunkY++) {
+                for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                    this.renderSectionManager.scheduleLightUpdate(chunkX, chunkY, chunkZ);
+                }
+            }
+        }
+    }
+
     public Collection<String> getMemoryDebugStrings() {
         return this.renderSectionManager.getDebugStrings();
     }
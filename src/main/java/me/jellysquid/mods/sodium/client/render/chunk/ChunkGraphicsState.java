@@ -1,48 +1,39 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
 import me.jellysquid.mods.sodium.client.gl.arena.GlBufferSegment;
-import me.jellysquid.mods.sodium.client.gl.util.ElementRange;
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
-import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
 import org.apache.commons.lang3.Validate;
 
 import java.util.Map;
 
 public class ChunkGraphicsState {
     private final GlBufferSegment vertexSegment;
-    private final GlBufferSegment indexSegment;
 
-    private final ElementRange[] parts;
+    private final VertexRange[] parts;
 
-    public ChunkGraphicsState(GlBufferSegment vertexSegment, GlBufferSegment indexSegment, ChunkMeshData data) {
+    public ChunkGraphicsState(GlBufferSegment vertexSegment, ChunkMeshData data) {
         Validate.notNull(vertexSegment);
-        Validate.notNull(indexSegment);
 
         this.vertexSegment = vertexSegment;
-        this.indexSegment = indexSegment;
 
-        this.parts = new ElementRange[ModelQuadFacing.COUNT];
+        this.parts = new VertexRange[ModelQuadFacing.COUNT];
 
-        for (Map.Entry<ModelQuadFacing, ElementRange> entry : data.getParts().entrySet()) {
+        for (Map.Entry<ModelQuadFacing, VertexRange> entry : data.getParts().entrySet()) {
             this.parts[entry.getKey().ordinal()] = entry.getValue();
         }
     }
 
     public void delete() {
         this.vertexSegment.delete();
-        this.indexSegment.delete();
     }
 
-    public ElementRange getModelPart(int facing) {
+    public VertexRange getModelPart(int facing) {
         return this.parts[facing];
     }
 
     public GlBufferSegment getVertexSegment() {
         return this.vertexSegment;
     }
-
-    public GlBufferSegment getIndexSegment() {
-        return this.indexSegment;
-    }
 }
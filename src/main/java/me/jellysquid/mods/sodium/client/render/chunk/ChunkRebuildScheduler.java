@@ -0,0 +1,280 @@
+package me.jellysquid.mods.sodium.client.render.chunk;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the sections which are waiting to be rebuilt across frames, and hands them out in order of priority.
+ * Important rebuilds always come first. Other sections are ordered by their distance to the camera, which is scaled by
+ * how far they are from the view direction and by their update type, and shrunk the longer they have been waiting.
+ *
+ * The entries are kept in a binary heap. Priorities are computed when a section is added, and the heap is only
+ * re-prioritized as a whole once the camera has moved or turned far enough for the order to have changed noticeably,
+ * or after a fixed number of frames so that the waiting sections keep aging while the camera is still.
+ */
+public class ChunkRebuildScheduler {
+    // The camera must move this many blocks or turn by more than this angle (as a cosine) before re-prioritizing
+    private static final float REPRIORITIZE_DISTANCE = 8.0f;
+    private static final float REPRIORITIZE_ANGLE = 0.92f;
+
+    // The number of frames after which the waiting sections are re-prioritized even if the camera hasn't moved
+    private static final int REPRIORITIZE_INTERVAL_FRAMES = 20;
+
+    // The number of frames after which the priority of a waiting section is halved
+    private static final float AGE_HALVING_FRAMES = 60.0f;
+
+    // Rebuilds of sections which are already built can show their old geometry meanwhile, so they are treated as if
+    // they were further away than sections which have never been built
+    private static final float REBUILD_DISTANCE_SCALE = 2.0f;
+
+    // Tracks the update type of the live entry for each section, so that a section is only in the heap once per type
+    private final Reference2ObjectOpenHashMap<RenderSection, ChunkUpdateType> queued = new Reference2ObjectOpenHashMap<>();
+
+    private RenderSection[] sections = new RenderSection[256];
+    private ChunkUpdateType[] types = new ChunkUpdateType[256];
+    private int[] frames = new int[256];
+    private float[] priorities = new float[256];
+    private int size;
+
+    private float cameraX, cameraY, cameraZ;
+    private float lookX, lookY, lookZ = 1.0f;
+    private int frame;
+
+    private float lastCameraX, lastCameraY, lastCameraZ;
+    private float lastLookX, lastLookY, lastLookZ = 1.0f;
+    private int lastFrame;
+
+    /**
+     * Updates the camera which sections are prioritized against, re-prioritizing the queued sections if it has
+     * changed significantly since they were last prioritized.
+     */
+    public void setCamera(float cameraX, float cameraY, float cameraZ, float lookX, float lookY, float lookZ, int frame) {
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+
+        this.lookX = lookX;
+        this.lookY = lookY;
+        this.lookZ = lookZ;
+
+        this.frame = frame;
+
+        float dx = cameraX - this.lastCameraX;
+        float dy = cameraY - this.lastCameraY;
+        float dz = cameraZ - this.lastCameraZ;
+
+        float dot = (lookX * this.lastLookX) + (lookY * this.lastLookY) + (lookZ * this.lastLookZ);
+
+        boolean aged = this.size > 0 && frame - this.lastFrame >= REPRIORITIZE_INTERVAL_FRAMES;
+
+        if ((dx * dx) + (dy * dy) + (dz * dz) > REPRIORITIZE_DISTANCE * REPRIORITIZE_DISTANCE || dot < REPRIORITIZE_ANGLE || aged) {
+            this.reprioritize();
+        }
+    }
+
+    /**
+     * Adds the section to the queue with its current pending update, unless it is already queued with that update.
+     */
+    public void enqueue(RenderSection section) {
+        var type = section.getPendingUpdate();
+
+        if (type == null || this.queued.put(section, type) == type) {
+            return;
+        }
+
+        // If the update type of the section has changed, the old entry is left in the heap and skipped once it is
+        // reached, since it no longer matches the queued type
+        this.push(section, type, this.frame);
+    }
+
+    /**
+     * Removes the section from the queue. The entry in the heap is skipped once it is reached.
+     */
+    public void remove(RenderSection section) {
+        this.queued.remove(section);
+    }
+
+    /**
+     * @return The section with the highest priority which still needs its queued update, or null if there are none.
+     * The section is not removed from the queue.
+     */
+    public RenderSection peek() {
+        while (this.size > 0) {
+            var section = this.sections[0];
+            var type = this.types[0];
+
+            // Entries are stale if the section was re-queued with another type since they were added
+            if (this.queued.get(section) == type) {
+                if (!section.isDisposed() && section.getPendingUpdate() == type) {
+                    return section;
+                }
+
+                this.queued.remove(section);
+            }
+
+            this.pop();
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes the section with the highest priority, which must be the section last returned by {@link #peek()}.
+     */
+    public void dequeue() {
+        this.queued.remove(this.sections[0]);
+        this.pop();
+    }
+
+    public int size() {
+        return this.queued.size();
+    }
+
+    public void clear() {
+        this.queued.clear();
+
+        Arrays.fill(this.sections, 0, this.size, null);
+        Arrays.fill(this.types, 0, this.size, null);
+
+        this.size = 0;
+    }
+
+    private void push(RenderSection section, ChunkUpdateType type, int frame) {
+        if (this.size == this.sections.length) {
+            int capacity = this.size * 2;
+
+            this.sections = Arrays.copyOf(this.sections, capacity);
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.frames = Arrays.copyOf(this.frames, capacity);
+            this.priorities = Arrays.copyOf(this.priorities, capacity);
+        }
+
+        int index = this.size++;
+
+        this.sections[index] = section;
+        this.types[index] = type;
+        this.frames[index] = frame;
+        this.priorities[index] = this.getPriority(section, type, frame);
+
+        this.siftUp(index);
+    }
+
+    private void pop() {
+        int last = --this.size;
+
+        this.swap(0, last);
+
+        this.sections[last] = null;
+        this.types[last] = null;
+
+        if (last > 0) {
+            this.siftDown(0);
+        }
+    }
+
+    private void reprioritize() {
+        this.lastCameraX = this.cameraX;
+        this.lastCameraY = this.cameraY;
+        this.lastCameraZ = this.cameraZ;
+
+        this.lastLookX = this.lookX;
+        this.lastLookY = this.lookY;
+        this.lastLookZ = this.lookZ;
+
+        this.lastFrame = this.frame;
+
+        for (int i = 0; i < this.size; i++) {
+            this.priorities[i] = this.getPriority(this.sections[i], this.types[i], this.frames[i]);
+        }
+
+        // Heapify from the bottom up, which takes linear time
+        for (int i = (this.size >>> 1) - 1; i >= 0; i--) {
+            this.siftDown(i);
+        }
+    }
+
+    /**
+     * @return The priority of the section, where lower values are more important. Important rebuilds always have a
+     * negative priority, which sorts them before all other updates while still ordering them by distance.
+     */
+    private float getPriority(RenderSection section, ChunkUpdateType type, int frame) {
+        float dx = (section.getOriginX() + 8.0f) - this.cameraX;
+        float dy = (section.getOriginY() + 8.0f) - this.cameraY;
+        float dz = (section.getOriginZ() + 8.0f) - this.cameraZ;
+
+        float distance = (float) Math.sqrt((dx * dx) + (dy * dy) + (dz * dz));
+
+        if (type.isImportant()) {
+            return -1.0f / (1.0f + distance);
+        }
+
+        // Ranges from 1.0 for sections in the view direction to 2.0 for sections directly behind the camera
+        float angle = 1.0f;
+
+        if (distance > 1.0e-3f) {
+            angle = 1.5f - (0.5f * (((dx * this.lookX) + (dy * this.lookY) + (dz * this.lookZ)) / distance));
+        }
+
+        float priority = distance * angle;
+
+        if (type == ChunkUpdateType.REBUILD || type == ChunkUpdateType.LIGHT_UPDATE) {
+            priority *= REBUILD_DISTANCE_SCALE;
+        }
+
+        int age = Math.max(0, this.frame - frame);
+
+        return priority / (1.0f + (age / AGE_HALVING_FRAMES));
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+
+            if (this.priorities[parent] <= this.priorities[index]) {
+                break;
+            }
+
+            this.swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = (index << 1) + 1;
+
+            if (left >= this.size) {
+                break;
+            }
+
+            int right = left + 1;
+            int child = right < this.size && this.priorities[right] < this.priorities[left] ? right : left;
+
+            if (this.priorities[index] <= this.priorities[child]) {
+                break;
+            }
+
+            this.swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        var section = this.sections[a];
+        this.sections[a] = this.sections[b];
+        this.sections[b] = section;
+
+        var type = this.types[a];
+        this.types[a] = this.types[b];
+        this.types[b] = type;
+
+        var frame = this.frames[a];
+        this.frames[a] = this.frames[b];
+        this.frames[b] = frame;
+
+        var priority = this.priorities[a];
+        this.priorities[a] = this.priorities[b];
+        this.priorities[b] = priority;
+    }
+}
@@ -2,6 +2,8 @@ package me.jellysquid.mods.sodium.client.render.chunk;
 
 public enum ChunkUpdateType {
     INITIAL_BUILD(false),
+    // Only the light of the section has changed, so its meshes can be created again from the quads of its last rebuild
+    LIGHT_UPDATE(false),
     REBUILD(false),
     IMPORTANT_REBUILD(true);
 
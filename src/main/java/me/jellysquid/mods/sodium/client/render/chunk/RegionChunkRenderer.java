@@ -8,11 +8,10 @@ import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.DrawCommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
-import me.jellysquid.mods.sodium.client.gl.tessellation.GlIndexType;
 import me.jellysquid.mods.sodium.client.gl.tessellation.GlPrimitiveType;
 import me.jellysquid.mods.sodium.client.gl.tessellation.GlTessellation;
 import me.jellysquid.mods.sodium.client.gl.tessellation.TessellationBinding;
-import me.jellysquid.mods.sodium.client.gl.util.ElementRange;
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
 import me.jellysquid.mods.sodium.client.gl.util.MultiDrawBatch;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
@@ -31,6 +30,10 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
     private final GlVertexAttributeBinding[] vertexAttributeBindings;
 
     private final GlMutableBuffer chunkInfoBuffer;
+    private final SharedQuadIndexBuffer sharedIndexBuffer;
+
+    // The largest number of quads in any draw command of the current batch
+    private int maxBatchQuadCount;
 
     public RegionChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
         super(device, vertexType);
@@ -48,6 +51,7 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
 
         try (CommandList commandList = device.createCommandList()) {
             this.chunkInfoBuffer = commandList.createMutableBuffer();
+            this.sharedIndexBuffer = new SharedQuadIndexBuffer(commandList);
 
             try (MemoryStack stack = MemoryStack.stackPush()) {
                 commandList.uploadData(this.chunkInfoBuffer, createChunkInfoBuffer(stack), GlBufferUsage.STATIC_DRAW);
@@ -81,11 +85,19 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
             var entry = pass.isTranslucent() ? iterator.previous() : iterator.next();
 
             var region = list.getRegion(entry.getLongKey());
+
+            // The region may have been deleted since the list was built if the graph search is asynchronous
+            if (region == null) {
+                continue;
+            }
+
             var sectionList = entry.getValue();
 
             this.buildDrawBatches(region, pass, sectionList);
 
             if (!this.batch.isEmpty()) {
+                this.sharedIndexBuffer.ensureCapacity(commandList, this.maxBatchQuadCount);
+
                 var tessellation = this.prepareTessellationForRegion(commandList, region);
                 this.setModelMatrixUniforms(region, shader, camera);
                 this.executeDrawBatches(commandList, tessellation);
@@ -97,6 +109,7 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
 
     private void buildDrawBatches(RenderRegion region, BlockRenderPass pass, IntArrayList sections) {
         this.batch.begin();
+        this.maxBatchQuadCount = 0;
 
         RenderRegion.RegionData regionData = region.getData(pass);
         IntListIterator it = pass.isTranslucent() ? sections.listIterator(sections.size()) : sections.listIterator();
@@ -112,9 +125,6 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
                 continue;
             }
 
-            long indexOffset = state.getIndexSegment()
-                    .getOffset();
-
             int baseVertex = state.getVertexSegment()
                     .getOffset() / this.vertexFormat.getStride();
 
@@ -123,10 +133,12 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
                     continue;
                 }
 
-                ElementRange part = state.getModelPart(facingIndex);
+                VertexRange part = state.getModelPart(facingIndex);
 
                 if (part != null) {
-                    this.batch.add(indexOffset + part.elementPointer(), part.elementCount(), baseVertex);
+                    // Every draw starts at the beginning of the shared index buffer and is offset by its base vertex
+                    this.batch.add(0L, SharedQuadIndexBuffer.getIndexCount(part.vertexCount()), baseVertex + part.vertexStart());
+                    this.maxBatchQuadCount = Math.max(this.maxBatchQuadCount, part.vertexCount() / 4);
                 }
             }
         }
@@ -140,7 +152,7 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
         if (tessellation == null) {
             region.setTessellation(tessellation = commandList.createTessellation(GlPrimitiveType.TRIANGLES, new TessellationBinding[] {
                     TessellationBinding.forVertexBuffer(region.getVertexBuffer().getBufferObject(), this.vertexAttributeBindings),
-                    TessellationBinding.forElementBuffer(region.getIndexBuffer().getBufferObject())
+                    TessellationBinding.forElementBuffer(this.sharedIndexBuffer.getBufferObject())
             }));
         }
 
@@ -149,7 +161,7 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
 
     private void executeDrawBatches(CommandList commandList, GlTessellation tessellation) {
         try (DrawCommandList drawCommandList = commandList.beginTessellating(tessellation)) {
-            drawCommandList.multiDrawElementsBaseVertex(this.batch.getPointerBuffer(), this.batch.getCountBuffer(), this.batch.getBaseVertexBuffer(), GlIndexType.UNSIGNED_INT);
+            drawCommandList.multiDrawElementsBaseVertex(this.batch.getPointerBuffer(), this.batch.getCountBuffer(), this.batch.getBaseVertexBuffer(), SharedQuadIndexBuffer.INDEX_TYPE);
         }
     }
 
@@ -167,8 +179,10 @@ public class RegionChunkRenderer extends ShaderChunkRenderer {
 
         this.batch.delete();
 
-        RenderDevice.INSTANCE.createCommandList()
-                .deleteBuffer(this.chunkInfoBuffer);
+        try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+            commandList.deleteBuffer(this.chunkInfoBuffer);
+            this.sharedIndexBuffer.delete(commandList);
+        }
     }
 
     private static float getCameraTranslation(int chunkBlockPos, int cameraBlockPos, float cameraPos) {
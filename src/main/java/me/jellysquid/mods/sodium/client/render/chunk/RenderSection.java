@@ -2,11 +2,16 @@ package me.jellysquid.mods.sodium.client.render.chunk;
 
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
 import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import net.minecraft.client.texture.Sprite;
 import net.minecraft.util.math.ChunkSectionPos;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -22,6 +27,14 @@ public class RenderSection {
     private ChunkUpdateType pendingUpdate;
     private int lastRebuildTime;
 
+    private long fingerprint = WorldSlice.NO_FINGERPRINT;
+
+    private Map<BlockRenderPass, TranslucentQuadData> translucentQuads = Collections.emptyMap();
+    private CompletableFuture<?> sortFuture;
+
+    // The position of the camera when the translucent quads of this section were last sorted
+    private float sortCameraX, sortCameraY, sortCameraZ;
+
     private int flags;
     private boolean disposed;
 
@@ -181,4 +194,71 @@ public class RenderSection {
     public void finishRebuild() {
         this.rebuildFuture = null;
     }
+
+    public boolean isRebuildPending() {
+        return this.rebuildFuture != null;
+    }
+
+    /**
+     * @return The fingerprint of the world slice which the current meshes of this section were built from, or
+     * {@link WorldSlice#NO_FINGERPRINT} if they can't be compared
+     */
+    public long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return The unsorted quads of each translucent render pass from the last rebuild of this section
+     */
+    public Map<BlockRenderPass, TranslucentQuadData> getTranslucentQuads() {
+        return this.translucentQuads;
+    }
+
+    public void setTranslucentQuads(Map<BlockRenderPass, TranslucentQuadData> translucentQuads) {
+        this.translucentQuads = translucentQuads;
+    }
+
+    public boolean isSortPending() {
+        return this.sortFuture != null && !this.sortFuture.isDone();
+    }
+
+    /**
+     * Records that the translucent quads of this section are being sorted for the given camera position.
+     * @param future The future of the sort task, or null if the quads are sorted as part of a rebuild
+     */
+    public void setSortFuture(CompletableFuture<?> future, float cameraX, float cameraY, float cameraZ) {
+        this.sortFuture = future;
+
+        this.sortCameraX = cameraX;
+        this.sortCameraY = cameraY;
+        this.sortCameraZ = cameraZ;
+    }
+
+    /**
+     * Forgets the camera position which the translucent quads of this section were last sorted for, so that they are
+     * sorted again as soon as possible. This is needed when a rebuild which was expected to sort them kept the
+     * existing meshes instead.
+     */
+    public void resetSortCamera() {
+        // The distance to a NaN position never passes the threshold test, so the section is always sorted again
+        this.sortCameraX = Float.NaN;
+        this.sortCameraY = Float.NaN;
+        this.sortCameraZ = Float.NaN;
+    }
+
+    /**
+     * @return The squared distance between the given camera position and the one which the translucent quads of this
+     * section were last sorted for
+     */
+    public float getSortCameraDistanceSq(float cameraX, float cameraY, float cameraZ) {
+        float dx = cameraX - this.sortCameraX;
+        float dy = cameraY - this.sortCameraY;
+        float dz = cameraZ - this.sortCameraZ;
+
+        return (dx * dx) + (dy * dy) + (dz * dz);
+    }
 }
@@ -1,25 +1,37 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
-import it.unimi.dsi.fastutil.PriorityQueue;
+import com.mojang.blaze3d.systems.RenderSystem;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntIterator;
-import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
+import me.jellysquid.mods.sodium.client.gui.SodiumGameOptions;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.SodiumWorldRenderer;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildTimeBudget;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkMeshCache;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.graph.ChunkGraphBitsetSearch;
 import me.jellysquid.mods.sodium.client.render.chunk.graph.ChunkGraphIterationQueue;
+import me.jellysquid.mods.sodium.client.render.chunk.graph.ChunkOcclusionRasterizer;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
+import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegion;
 import me.jellysquid.mods.sodium.client.render.chunk.region.RenderRegionManager;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderBuildTask;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderEmptyBuildTask;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderRebuildTask;
+import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderRelightTask;
+import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderSortTask;
 import me.jellysquid.mods.sodium.client.util.MathUtil;
 import me.jellysquid.mods.sodium.client.util.collections.BitArray;
 import me.jellysquid.mods.sodium.client.util.frustum.Frustum;
@@ -31,27 +43,61 @@ import me.jellysquid.mods.sodium.common.util.collections.WorkStealingFutureDrain
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.FogShape;
 import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.*;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.ChunkSection;
+import org.joml.Matrix4f;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class RenderSectionManager {
+    /**
+     * The minimum number of sections in a wavefront of the graph search before the work is split across threads.
+     * Smaller wavefronts are processed on the calling thread, since the synchronization costs would outweigh the gains.
+     */
+    private static final int PARALLEL_SEARCH_MIN_FRONTIER = 256;
+
+    /**
+     * The maximum number of sections whose translucent quads are sorted again each frame.
+     */
+    private static final int MAX_SORT_TASKS_PER_FRAME = 16;
+
+    /**
+     * The distance in blocks which the camera has to move before the translucent quads of a section are sorted again.
+     */
+    private static final float SORT_CAMERA_DISTANCE = 1.0f;
+
     private final ChunkBuilder builder;
 
     private final RenderRegionManager regions;
-    private final EnumMap<ChunkUpdateType, PriorityQueue<RenderSection>> rebuildQueues = new EnumMap<>(ChunkUpdateType.class);
 
-    private final ChunkRenderList chunkRenderList;
+    // The lists which are used for rendering and rebuilds, and the lists which are written to by the graph search.
+    // These are the same object unless the graph search is performed asynchronously.
+    private Lists lists;
+    private Lists searchLists;
+
+    // The visibility bits matching the contents of the render lists
+    private long[] visible;
+
     private final ChunkGraphIterationQueue iterationQueue = new ChunkGraphIterationQueue();
 
-    private final IntArrayList tickableChunks = new IntArrayList();
-    private final IntArrayList entityChunks = new IntArrayList();
+    private final ChunkRebuildScheduler rebuildScheduler = new ChunkRebuildScheduler();
+    private final ChunkBuildTimeBudget buildTimeBudget = new ChunkBuildTimeBudget();
+
+    // The loaded sections which have translucent quads that can be sorted
+    private final ReferenceOpenHashSet<RenderSection> translucentSections = new ReferenceOpenHashSet<>();
+    private final ObjectArrayList<RenderSection> sortCandidates = new ObjectArrayList<>();
+
+    private final ClonedChunkSectionCache sectionCache;
 
     private final RegionChunkRenderer chunkRenderer;
 
@@ -62,26 +108,74 @@ public class RenderSectionManager {
     private final int bottomSectionCoord, topSectionCoord;
 
     private float cameraX, cameraY, cameraZ;
+    private final Matrix4f viewProjection = new Matrix4f();
+
+    private boolean useFogCulling;
+    private boolean useCylindricalFog;
+    private float fogEnd;
     private int centerChunkX, centerChunkY, centerChunkZ;
 
     private boolean needsUpdate;
 
     private boolean useOcclusionCulling;
 
+    private boolean useIncrementalGraphUpdates;
+
+    private final SodiumGameOptions.GraphSearchMode graphSearchMode;
+    private final ChunkGraphBitsetSearch bitsetSearch;
+
+    private final ChunkOcclusionRasterizer occlusionRasterizer = new ChunkOcclusionRasterizer();
+
+    private final ExecutorService asyncSearchExecutor;
+    private CompletableFuture<Void> pendingSearch;
+    private final List<Runnable> deferredGraphChanges = new ArrayList<>();
+    private boolean reachabilityDirty = true;
+
+    private int reachabilityOriginX, reachabilityOriginY, reachabilityOriginZ;
+    private boolean reachabilityUsedOcclusionCulling;
+
     private Frustum frustum;
 
     private int currentFrame = 0;
+
+    // The number of rebuilds which were skipped because the inputs of their section hadn't changed
+    private long skippedRebuilds;
+
+    // The persistent cache of meshes, or null if it is disabled
+    private final ChunkMeshCache meshCache;
     private boolean alwaysDeferChunkUpdates;
     private boolean useBlockFaceCulling;
 
+    private static class Lists {
+        // The visible sections which had a pending update, in the order they were found by the search
+        public final ObjectArrayList<RenderSection> pendingUpdates = new ObjectArrayList<>();
+        public final ChunkRenderList chunkRenderList;
+
+        public final IntArrayList tickableChunks = new IntArrayList();
+        public final IntArrayList entityChunks = new IntArrayList();
+
+        public Lists(RenderRegionManager regions) {
+            this.chunkRenderList = new ChunkRenderList(regions);
+        }
+
+        public void clear() {
+            this.pendingUpdates.clear();
+            this.entityChunks.clear();
+            this.chunkRenderList.clear();
+            this.tickableChunks.clear();
+        }
+    }
+
     private static class State {
         private static final long DEFAULT_VISIBILITY_DATA = calculateVisibilityData(ChunkRenderData.EMPTY.getOcclusionData());
 
         private final int offsetZ, offsetY;
         private final int maskXZ, maskY;
 
+        public final int sizeXZ, sizeY;
+
         public final RenderSection[] sections;
-        public final long[] visible;
+        public long[] visible;
         public final long[] visibilityData;
 
         public final byte[] cullingState;
@@ -89,12 +183,21 @@ public class RenderSectionManager {
 
         public final byte[] frustumCache;
 
+        // The frustum test results for each render region, which are used to classify all sections in a region at once
+        private final int regionOffsetZ, regionOffsetY;
+        private final int regionMaskXZ, regionMaskY;
+
+        public final byte[] regionFrustumCache;
+
         public int sectionCount = 0;
 
         public State(World world, int renderDistance) {
             int sizeXZ = MathHelper.smallestEncompassingPowerOfTwo((renderDistance * 2) + 1);
             int sizeY = MathHelper.smallestEncompassingPowerOfTwo(world.getTopSectionCoord() - world.getBottomSectionCoord());
 
+            this.sizeXZ = sizeXZ;
+            this.sizeY = sizeY;
+
             this.maskXZ = sizeXZ - 1;
             this.maskY = sizeY - 1;
 
@@ -112,6 +215,19 @@ public class RenderSectionManager {
             this.direction = new byte[arraySize];
 
             this.frustumCache = new byte[arraySize / (4)];
+
+            // The sections within the render distance can span one more region than fits evenly into the grid, so the
+            // region grid is sized to avoid two of those regions sharing an index
+            int regionSizeXZ = MathHelper.smallestEncompassingPowerOfTwo((sizeXZ / RenderRegion.REGION_WIDTH) + 1);
+            int regionSizeY = MathHelper.smallestEncompassingPowerOfTwo((sizeY / RenderRegion.REGION_HEIGHT) + 1);
+
+            this.regionMaskXZ = regionSizeXZ - 1;
+            this.regionMaskY = regionSizeY - 1;
+
+            this.regionOffsetZ = Integer.numberOfTrailingZeros(regionSizeXZ);
+            this.regionOffsetY = this.regionOffsetZ * 2;
+
+            this.regionFrustumCache = new byte[regionSizeXZ * regionSizeY * regionSizeXZ];
         }
 
         public void reset() {
@@ -120,12 +236,21 @@ public class RenderSectionManager {
             Arrays.fill(this.cullingState, (byte) 0);
             Arrays.fill(this.direction, (byte) 0);
 
+            this.resetFrustum();
+        }
+
+        public void resetFrustum() {
             Arrays.fill(this.frustumCache, (byte) 0);
+            Arrays.fill(this.regionFrustumCache, (byte) 0);
         }
 
         public int getIndex(int x, int y, int z) {
             return ((y & this.maskY) << this.offsetY) |((z & this.maskXZ) << (this.offsetZ)) | (x & this.maskXZ);
         }
+
+        public int getRegionIndex(int regionX, int regionY, int regionZ) {
+            return ((regionY & this.regionMaskY) << this.regionOffsetY) | ((regionZ & this.regionMaskXZ) << this.regionOffsetZ) | (regionX & this.regionMaskXZ);
+        }
     }
 
     private static long calculateVisibilityData(ChunkOcclusionData occlusionData) {
@@ -156,68 +281,298 @@ public class RenderSectionManager {
     private final State state;
 
     public RenderSectionManager(SodiumWorldRenderer worldRenderer, BlockRenderPassManager renderPassManager, ClientWorld world, int renderDistance, CommandList commandList) {
-        this.chunkRenderer = new RegionChunkRenderer(RenderDevice.INSTANCE, ChunkModelVertexFormats.DEFAULT);
+        // Merged faces need the spare bits of the wider light-map coordinates to repeat their textures
+        ChunkVertexType vertexType = SodiumClientMod.options().performance.useGreedyMeshing ?
+                ChunkModelVertexFormats.DEFAULT : ChunkModelVertexFormats.COMPACT;
+
+        this.chunkRenderer = new RegionChunkRenderer(RenderDevice.INSTANCE, vertexType);
 
         this.worldRenderer = worldRenderer;
         this.world = world;
+        this.sectionCache = new ClonedChunkSectionCache(world);
 
-        this.builder = new ChunkBuilder(ChunkModelVertexFormats.DEFAULT);
+        this.builder = new ChunkBuilder(vertexType);
         this.builder.init(world, renderPassManager);
 
+        this.meshCache = SodiumClientMod.options().performance.useMeshCache ? new ChunkMeshCache(world, vertexType) : null;
+
         this.needsUpdate = true;
         this.renderDistance = renderDistance;
 
         this.regions = new RenderRegionManager(commandList);
 
-        for (ChunkUpdateType type : ChunkUpdateType.values()) {
-            this.rebuildQueues.put(type, new ObjectArrayFIFOQueue<>());
-        }
-
         this.bottomSectionCoord = this.world.getBottomSectionCoord();
         this.topSectionCoord = this.world.getTopSectionCoord();
 
         this.state = new State(this.world, renderDistance);
-        this.chunkRenderList = new ChunkRenderList(this.regions);
+
+        var options = SodiumClientMod.options();
+
+        this.graphSearchMode = options.performance.graphSearchMode;
+        this.bitsetSearch = this.graphSearchMode == SodiumGameOptions.GraphSearchMode.BITSET ?
+                new ChunkGraphBitsetSearch(this.state.sizeXZ, this.state.sizeY, this.bottomSectionCoord) : null;
+
+        this.lists = new Lists(this.regions);
+
+        if (options.performance.useAsyncGraphSearch) {
+            this.searchLists = new Lists(this.regions);
+            this.visible = BitArray.create(this.state.sections.length);
+
+            this.asyncSearchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Chunk Graph Search");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        } else {
+            this.searchLists = this.lists;
+            this.visible = this.state.visible;
+
+            this.asyncSearchExecutor = null;
+        }
     }
 
     public void update(Camera camera, Frustum frustum, int frame, boolean spectator) {
-        this.resetLists();
+        if (this.pendingSearch != null) {
+            this.completePendingSearch();
+
+            if (!this.needsUpdate) {
+                return;
+            }
+        }
 
-        this.setup(camera);
-        this.iterateChunks(camera, frustum, frame, spectator);
+        this.searchLists.clear();
+
+        this.setup(camera, frustum, frame, spectator);
+
+        if (this.asyncSearchExecutor != null) {
+            this.pendingSearch = CompletableFuture.runAsync(this::search, this.asyncSearchExecutor);
+        } else {
+            this.search();
+            this.scheduleUpdates(this.lists);
+        }
 
         this.needsUpdate = false;
     }
 
-    private void setup(Camera camera) {
+    /**
+     * Waits for the asynchronous graph search started in the previous update to finish, then swaps the render lists
+     * with the search results and applies any changes to the graph which were deferred while the search was running.
+     */
+    private void completePendingSearch() {
+        this.pendingSearch.join();
+        this.pendingSearch = null;
+
+        var lists = this.lists;
+        this.lists = this.searchLists;
+        this.searchLists = lists;
+
+        var visible = this.visible;
+        this.visible = this.state.visible;
+        this.state.visible = visible;
+
+        this.scheduleUpdates(this.lists);
+
+        for (var change : this.deferredGraphChanges) {
+            change.run();
+        }
+
+        this.deferredGraphChanges.clear();
+    }
+
+    /**
+     * Hands the visible sections with pending updates which were found by a search over to the rebuild scheduler.
+     * Sections which are already queued keep their place, and sections which are no longer visible stay queued.
+     */
+    private void scheduleUpdates(Lists lists) {
+        for (var section : lists.pendingUpdates) {
+            this.rebuildScheduler.enqueue(section);
+        }
+
+        lists.pendingUpdates.clear();
+    }
+
+    /**
+     * Runs the given change to the graph state immediately, or defers it until the pending asynchronous search has
+     * completed. The search thread only reads the section arrays and visibility data of the graph, so they must not
+     * be modified while it is running.
+     */
+    private void modifyGraph(Runnable change) {
+        if (this.pendingSearch != null) {
+            this.deferredGraphChanges.add(change);
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Searches the graph and fills the search lists. When the search is asynchronous, this only reads the state which
+     * was captured by {@link RenderSectionManager#setup(Camera, Frustum, int, boolean)} and the graph state, which
+     * isn't modified while the search is running. The flags and pending updates of each section may change while the
+     * search is running, but those are checked again when the lists are consumed.
+     */
+    private void search() {
+        if (this.useIncrementalGraphUpdates) {
+            if (this.isReachabilityDirty()) {
+                this.state.reset();
+                this.iterateChunks(true);
+
+                this.reachabilityOriginX = this.centerChunkX;
+                this.reachabilityOriginY = this.centerChunkY;
+                this.reachabilityOriginZ = this.centerChunkZ;
+                this.reachabilityUsedOcclusionCulling = this.useOcclusionCulling;
+                this.reachabilityDirty = false;
+            } else {
+                this.state.resetFrustum();
+            }
+
+            this.filterReachableChunks();
+        } else {
+            this.state.reset();
+            this.iterateChunks(false);
+
+            this.reachabilityDirty = true;
+        }
+    }
+
+    private void setup(Camera camera, Frustum frustum, int frame, boolean spectator) {
         Vec3d cameraPos = camera.getPos();
 
         this.cameraX = (float) cameraPos.x;
         this.cameraY = (float) cameraPos.y;
         this.cameraZ = (float) cameraPos.z;
 
+        // Matches the camera transformations applied by the game renderer before the world is rendered
+        this.viewProjection.set(RenderSystem.getProjectionMatrix())
+                .rotateX((float) Math.toRadians(camera.getPitch()))
+                .rotateY((float) Math.toRadians(camera.getYaw() + 180.0f));
+
+        BlockPos origin = camera.getBlockPos();
+
+        this.centerChunkX = origin.getX() >> 4;
+        this.centerChunkY = origin.getY() >> 4;
+        this.centerChunkZ = origin.getZ() >> 4;
+
+        this.currentFrame = frame;
+        this.frustum = frustum;
+
+        Vec3d look = Vec3d.fromPolar(camera.getPitch(), camera.getYaw());
+
+        this.rebuildScheduler.setCamera(this.cameraX, this.cameraY, this.cameraZ,
+                (float) look.x, (float) look.y, (float) look.z, frame);
+
+        this.useOcclusionCulling = MinecraftClient.getInstance().chunkCullingEnabled;
+
+        if (spectator && this.world.getBlockState(origin).isOpaqueFullCube(this.world, origin)) {
+            this.useOcclusionCulling = false;
+        }
+
         var options = SodiumClientMod.options();
 
         this.alwaysDeferChunkUpdates = options.performance.alwaysDeferChunkUpdates;
         this.useBlockFaceCulling = options.performance.useBlockFaceCulling;
+        this.useIncrementalGraphUpdates = options.performance.useIncrementalGraphUpdates;
 
-        this.state.reset();
+        // Fog is disabled by the game by moving its start past its end
+        this.fogEnd = RenderSystem.getShaderFogEnd();
+        this.useCylindricalFog = RenderSystem.getShaderFogShape() == FogShape.CYLINDER;
+        this.useFogCulling = options.performance.useFogOcclusion && RenderSystem.getShaderFogStart() < this.fogEnd;
+    }
+
+    /**
+     * The reachable set of sections only depends on the section containing the camera and the visibility data of
+     * each section, so it can be re-used across frames until either of those change. Camera rotation only affects the
+     * frustum, which is applied afterwards by {@link RenderSectionManager#filterReachableChunks()}.
+     */
+    private boolean isReachabilityDirty() {
+        return this.reachabilityDirty ||
+                this.reachabilityOriginX != this.centerChunkX ||
+                this.reachabilityOriginY != this.centerChunkY ||
+                this.reachabilityOriginZ != this.centerChunkZ ||
+                this.reachabilityUsedOcclusionCulling != this.useOcclusionCulling;
+    }
+
+    /**
+     * Walks the cached list of reachable sections in graph order and adds those which are within the current frustum
+     * to the render lists. The ordering of the iteration queue is retained, so translucent sorting is unaffected.
+     */
+    private void filterReachableChunks() {
+        BitArray.clear(this.state.visible);
+
+        for (int i = 0; i < this.iterationQueue.size(); i++) {
+            var sectionId = this.iterationQueue.getSection(i);
+            var section = this.state.sections[sectionId];
+
+            if (this.useOcclusionCulling && this.isCulledByFrustum(sectionId)) {
+                continue;
+            }
+
+            if (this.useFogCulling && this.isCulledByFog(sectionId)) {
+                continue;
+            }
+
+            BitArray.set(this.state.visible, sectionId);
+
+            this.addSectionToLists(sectionId, section);
+        }
     }
 
-    private void iterateChunks(Camera camera, Frustum frustum, int frame, boolean spectator) {
-        this.initSearch(camera, frustum, frame, spectator);
+    /**
+     * @param reachabilityOnly If true, the frustum is not considered and sections are only collected into the iteration
+     *                         queue, so that the result can be cached for as long as the camera stays within the same
+     *                         section. Occlusion culling by rasterization depends on the view and is skipped in
+     *                         this mode.
+     */
+    private void iterateChunks(boolean reachabilityOnly) {
+        this.initSearch(reachabilityOnly);
 
         boolean useOcclusionCulling = this.useOcclusionCulling;
-        boolean useRaycast = SodiumClientMod.options().performance.useRasterOcclusionCulling;
+        boolean useFrustumCulling = useOcclusionCulling && !reachabilityOnly;
+        boolean useFogCulling = this.useFogCulling && !reachabilityOnly;
+        boolean useRasterCulling = useFrustumCulling && SodiumClientMod.options().performance.useRasterOcclusionCulling;
+
+        if (this.graphSearchMode != SodiumGameOptions.GraphSearchMode.SERIAL) {
+            if (this.bitsetSearch != null) {
+                // The occlusion rasterizer needs to visit each section in order, so it isn't used with the bitset search
+                this.bitsetSearch.search(this.iterationQueue, this.state.visible,
+                        this.centerChunkX, this.centerChunkY, this.centerChunkZ, useOcclusionCulling,
+                        useFrustumCulling || useFogCulling ? id -> (useFrustumCulling && this.isCulledByFrustum(id)) ||
+                                (useFogCulling && this.isCulledByFog(id)) : null);
+            } else {
+                // The occlusion rasterizer can't be shared between threads, so it isn't used with the parallel search
+                this.iterateChunksParallel(useOcclusionCulling, useFrustumCulling, useFogCulling);
+            }
+
+            if (!reachabilityOnly) {
+                for (int i = 0; i < this.iterationQueue.size(); i++) {
+                    var sectionId = this.iterationQueue.getSection(i);
+                    this.addSectionToLists(sectionId, this.state.sections[sectionId]);
+                }
+            }
+
+            return;
+        }
+
+        if (useRasterCulling) {
+            this.occlusionRasterizer.begin(this.viewProjection, this.cameraX, this.cameraY, this.cameraZ);
+        }
 
         for (int i = 0; i < this.iterationQueue.size(); i++) {
             var fromId = this.iterationQueue.getSection(i);
             var from = this.state.sections[fromId];
 
-            this.addSectionToLists(fromId, from);
-            if (useRaycast && this.raycast(from.getChunkX(), from.getChunkY(), from.getChunkZ(),
-                    this.centerChunkX, this.centerChunkY, this.centerChunkZ)) {
-                continue;
+            if (useRasterCulling) {
+                // Sections hidden behind previously visited sections are neither drawn nor searched through
+                if (this.occlusionRasterizer.isOccluded(from.getChunkX(), from.getChunkY(), from.getChunkZ())) {
+                    continue;
+                }
+
+                this.occlusionRasterizer.addOccluder(from.getChunkX(), from.getChunkY(), from.getChunkZ(),
+                        from.getData().getOpaqueFaces());
+            }
+
+            if (!reachabilityOnly) {
+                this.addSectionToLists(fromId, from);
             }
 
             for (int toDirection = 0; toDirection < DirectionUtil.COUNT; toDirection++) {
@@ -235,7 +590,11 @@ public class RenderSectionManager {
                     continue;
                 }
 
-                if (useOcclusionCulling && this.isCulledByFrustum(toX, toY, toZ)) {
+                if (useFrustumCulling && this.isCulledByFrustum(toX, toY, toZ)) {
+                    continue;
+                }
+
+                if (useFogCulling && this.isCulledByFog(toX, toY, toZ)) {
                     continue;
                 }
 
@@ -252,6 +611,135 @@ public class RenderSectionManager {
         }
     }
 
+    /**
+     * Performs a level-synchronous search of the graph, where each wavefront (the set of sections at the same distance
+     * in the graph from the origin) is split across the fork-join pool. Each slice of the wavefront only collects the
+     * edges to the neighbours of its sections which pass the culling tests, without modifying any shared state. Once
+     * all slices complete, the edges are applied on the calling thread in slice order, so every section is claimed by
+     * its first parent in queue order and the iteration queue remains ordered by graph distance from the camera, like
+     * the single-threaded search.
+     *
+     * The one difference is that the direction bits added by edges between sections of the same wavefront only take
+     * effect after the wavefront, while the single-threaded search sees them as soon as they are added. The results
+     * don't depend on thread timing, so the same camera always produces the same visible sections.
+     */
+    private void iterateChunksParallel(boolean useOcclusionCulling, boolean useFrustumCulling, boolean useFogCulling) {
+        var pool = ForkJoinPool.commonPool();
+        var tasks = new ArrayList<ForkJoinTask<LongArrayList>>();
+
+        int levelStart = 0;
+
+        while (levelStart < this.iterationQueue.size()) {
+            int levelEnd = this.iterationQueue.size();
+            int levelSize = levelEnd - levelStart;
+
+            if (levelSize < PARALLEL_SEARCH_MIN_FRONTIER || pool.getParallelism() <= 1) {
+                var edges = new LongArrayList();
+                this.searchFrontier(levelStart, levelEnd, useOcclusionCulling, useFrustumCulling, useFogCulling, edges);
+                this.applyEdges(edges);
+            } else {
+                int sliceCount = Math.min(pool.getParallelism() * 2, levelSize / (PARALLEL_SEARCH_MIN_FRONTIER / 4));
+
+                for (int slice = 0; slice < sliceCount; slice++) {
+                    int sliceStart = levelStart + (int) (((long) levelSize * slice) / sliceCount);
+                    int sliceEnd = levelStart + (int) (((long) levelSize * (slice + 1)) / sliceCount);
+
+                    tasks.add(pool.submit(() -> {
+                        var edges = new LongArrayList();
+                        this.searchFrontier(sliceStart, sliceEnd, useOcclusionCulling, useFrustumCulling, useFogCulling, edges);
+
+                        return edges;
+                    }));
+                }
+
+                for (var task : tasks) {
+                    this.applyEdges(task.join());
+                }
+
+                tasks.clear();
+            }
+
+            levelStart = levelEnd;
+        }
+    }
+
+    /**
+     * Collects the edges from every section in the given range of the iteration queue to those of its neighbours which
+     * aren't culled. This may be called from multiple threads at once, so it only reads the state of the search.
+     */
+    private void searchFrontier(int start, int end, boolean useOcclusionCulling, boolean useFrustumCulling, boolean useFogCulling, LongArrayList edges) {
+        for (int i = start; i < end; i++) {
+            var fromId = this.iterationQueue.getSection(i);
+            var from = this.state.sections[fromId];
+
+            for (int toDirection = 0; toDirection < DirectionUtil.COUNT; toDirection++) {
+                int toX = from.getChunkX() + DirectionUtil.getOffsetX(toDirection);
+                int toY = from.getChunkY() + DirectionUtil.getOffsetY(toDirection);
+                int toZ = from.getChunkZ() + DirectionUtil.getOffsetZ(toDirection);
+
+                int toId = this.state.getIndex(toX, toY, toZ);
+
+                if (this.state.sections[toId] == null) {
+                    continue;
+                }
+
+                if (useOcclusionCulling && this.isCulledByGraph(fromId, toDirection)) {
+                    continue;
+                }
+
+                if (useFrustumCulling && this.isCulledByFrustum(toX, toY, toZ)) {
+                    continue;
+                }
+
+                if (useFogCulling && this.isCulledByFog(toX, toY, toZ)) {
+                    continue;
+                }
+
+                edges.add(packEdge(fromId, toId, toDirection));
+            }
+        }
+    }
+
+    /**
+     * Applies the edges collected by {@link #searchFrontier} in order, in the same way as the single-threaded search.
+     * A section is claimed by the first edge which reaches it, which adds it to the queue and decides its culling state.
+     */
+    private void applyEdges(LongArrayList edges) {
+        for (int i = 0; i < edges.size(); i++) {
+            long edge = edges.getLong(i);
+
+            int fromId = unpackEdgeFrom(edge);
+            int toId = unpackEdgeTo(edge);
+            int toDirection = unpackEdgeDirection(edge);
+
+            if (!BitArray.get(this.state.visible, toId)) {
+                BitArray.set(this.state.visible, toId);
+
+                this.state.cullingState[toId] |=
+                        (byte) (this.state.cullingState[fromId] | (1 << toDirection));
+                this.iterationQueue.add(toId);
+            }
+
+            this.state.direction[toId] |= (1 << toDirection);
+        }
+    }
+
+    private static long packEdge(int fromId, int toId, int direction) {
+        return ((long) toId << 32) | ((long) fromId << 3) | direction;
+    }
+
+    private static int unpackEdgeTo(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int unpackEdgeFrom(long edge) {
+        return (int) ((edge & 0xFFFFFFFFL) >>> 3);
+    }
+
+    private static int unpackEdgeDirection(long edge) {
+        return (int) (edge & 0b111);
+    }
+
     private boolean isCulledByGraph(int fromId, int toDirection) {
         if (canCull(this.state.cullingState[fromId], DirectionUtil.getOpposite(toDirection))) {
             return true;
@@ -280,24 +768,23 @@ public class RenderSectionManager {
     }
 
     private void addSectionToLists(int sectionId, RenderSection section) {
-        if (section.getPendingUpdate() != null) {
-            var queue = this.rebuildQueues.get(section.getPendingUpdate());
+        var lists = this.searchLists;
+        var pendingUpdate = section.getPendingUpdate();
 
-            if (queue.size() < 32) {
-                queue.enqueue(section);
-            }
+        if (pendingUpdate != null) {
+            lists.pendingUpdates.add(section);
         }
 
         if (section.hasFlag(ChunkDataFlags.HAS_BLOCK_GEOMETRY)) {
-            this.chunkRenderList.add(section, this.getVisibleFaces(section));
+            lists.chunkRenderList.add(section, this.getVisibleFaces(section));
         }
 
         if (section.hasFlag(ChunkDataFlags.HAS_ANIMATED_SPRITES)) {
-            this.tickableChunks.add(sectionId);
+            lists.tickableChunks.add(sectionId);
         }
 
         if (section.hasFlag(ChunkDataFlags.HAS_BLOCK_ENTITIES)) {
-            this.entityChunks.add(sectionId);
+            lists.entityChunks.add(sectionId);
         }
     }
 
@@ -337,19 +824,10 @@ public class RenderSectionManager {
         }
     }
 
-    private void resetLists() {
-        for (var queue : this.rebuildQueues.values()) {
-            queue.clear();
-        }
-
-        this.entityChunks.clear();
-        this.chunkRenderList.clear();
-        this.tickableChunks.clear();
-    }
-
     public Iterator<BlockEntity> getVisibleBlockEntities() {
-        return this.entityChunks.intStream()
+        return this.lists.entityChunks.intStream()
                 .mapToObj(id -> this.state.sections[id])
+                .filter(Objects::nonNull)
                 .flatMap(section -> section.getData()
                         .getBlockEntities()
                         .stream())
@@ -360,23 +838,26 @@ public class RenderSectionManager {
         RenderDevice device = RenderDevice.INSTANCE;
         CommandList commandList = device.createCommandList();
 
-        this.chunkRenderer.render(matrices, commandList, this.chunkRenderList, pass, new ChunkCameraContext(x, y, z));
+        this.chunkRenderer.render(matrices, commandList, this.lists.chunkRenderList, pass, new ChunkCameraContext(x, y, z));
 
         commandList.flush();
     }
 
     public void tickVisibleRenders() {
-        var iterator = this.tickableChunks.iterator();
+        var iterator = this.lists.tickableChunks.iterator();
         var sections = this.state.sections;
 
         while (iterator.hasNext()) {
             var section = sections[iterator.nextInt()];
-            section.tick();
+
+            if (section != null) {
+                section.tick();
+            }
         }
     }
 
     public boolean isSectionVisible(int x, int y, int z) {
-        return BitArray.get(this.state.visible, this.state.getIndex(x, y, z));
+        return BitArray.get(this.visible, this.state.getIndex(x, y, z));
     }
 
     public void updateChunks() {
@@ -393,14 +874,22 @@ public class RenderSectionManager {
     private void updateChunks(boolean allImmediately) {
         var blockingFutures = new LinkedList<CompletableFuture<ChunkBuildResult>>();
 
-        var sectionCache = new ClonedChunkSectionCache(this.world);
+        int timeBudget = SodiumClientMod.options().performance.chunkUpdateTimeBudget;
+        boolean useTimeBudget = !allImmediately && timeBudget > 0;
+
+        if (useTimeBudget) {
+            this.buildTimeBudget.begin(timeBudget);
+        }
 
-        this.submitRebuildTasks(ChunkUpdateType.IMPORTANT_REBUILD, blockingFutures, sectionCache);
-        this.submitRebuildTasks(ChunkUpdateType.INITIAL_BUILD, allImmediately ? blockingFutures : null, sectionCache);
-        this.submitRebuildTasks(ChunkUpdateType.REBUILD, allImmediately ? blockingFutures : null, sectionCache);
+        this.submitRebuildTasks(blockingFutures, allImmediately, useTimeBudget);
+        this.submitSortTasks();
 
         // Try to complete some other work on the main thread while we wait for rebuilds to complete
-        this.needsUpdate |= this.processBuiltChunks(this.builder.createAsyncResultDrain());
+        if (useTimeBudget) {
+            this.needsUpdate |= this.processBuiltChunksWithinBudget();
+        } else {
+            this.needsUpdate |= this.processBuiltChunks(this.builder.createAsyncResultDrain());
+        }
 
         if (!blockingFutures.isEmpty()) {
             this.needsUpdate = this.processBuiltChunks(new WorkStealingFutureDrain<>(blockingFutures, this.builder::stealTask));
@@ -410,8 +899,25 @@ public class RenderSectionManager {
     }
 
     private boolean processBuiltChunks(Iterator<ChunkBuildResult> it) {
-        var results = collectBuiltChunks(it);
+        return this.uploadBuiltChunks(this.collectBuiltChunks(it));
+    }
+
+    /**
+     * Uploads as many of the completed results as the time budget is expected to allow, leaving the rest for the
+     * following frames.
+     */
+    private boolean processBuiltChunksWithinBudget() {
+        long start = System.nanoTime();
 
+        var results = this.collectBuiltChunks(this.builder.createAsyncResultDrain(this.buildTimeBudget.getUploadLimit()));
+        var uploaded = this.uploadBuiltChunks(results);
+
+        this.buildTimeBudget.recordUploads(results.size(), System.nanoTime() - start);
+
+        return uploaded;
+    }
+
+    private boolean uploadBuiltChunks(ArrayList<ChunkBuildResult> results) {
         this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), results);
 
         for (var result : results) {
@@ -422,7 +928,7 @@ public class RenderSectionManager {
         return !results.isEmpty();
     }
 
-    private static ArrayList<ChunkBuildResult> collectBuiltChunks(Iterator<ChunkBuildResult> it) {
+    private ArrayList<ChunkBuildResult> collectBuiltChunks(Iterator<ChunkBuildResult> it) {
         var results = new ArrayList<ChunkBuildResult>();
 
         while (it.hasNext()) {
@@ -434,48 +940,100 @@ public class RenderSectionManager {
                 continue;
             }
 
+            if (result.isUnchanged()) {
+                // The existing translucent quads weren't sorted for the camera position recorded when the rebuild
+                // was scheduled, so they need to be sorted again
+                section.resetSortCamera();
+                section.finishRebuild();
+                this.skippedRebuilds++;
+                continue;
+            }
+
+            if (result.isPartial()) {
+                // The quads were sorted from the geometry of a previous rebuild, which has since been replaced
+                if (result.translucentQuads != section.getTranslucentQuads()) {
+                    result.delete();
+                    continue;
+                }
+            } else {
+                // This is updated as the results are collected, so that any sorted meshes later in the same batch
+                // which were created from the old quads are discarded
+                this.setTranslucentQuads(section, result.translucentQuads);
+            }
+
             results.add(result);
         }
 
         return results;
     }
 
+    private void setTranslucentQuads(RenderSection section, Map<BlockRenderPass, TranslucentQuadData> translucentQuads) {
+        section.setTranslucentQuads(translucentQuads);
+
+        if (translucentQuads.isEmpty()) {
+            this.translucentSections.remove(section);
+        } else {
+            this.translucentSections.add(section);
+        }
+    }
+
     private void updateSectionData(ChunkBuildResult result) {
         var section = result.section;
 
+        if (result.isPartial()) {
+            return;
+        }
+
         this.worldRenderer.onChunkRenderUpdated(section.getChunkX(), section.getChunkY(), section.getChunkZ(),
                 section.getData(), result.data);
 
         section.setData(result.data);
+        section.setFingerprint(result.fingerprint);
         section.finishRebuild();
     }
 
-    private void submitRebuildTasks(ChunkUpdateType updateType, LinkedList<CompletableFuture<ChunkBuildResult>> immediateFutures, ClonedChunkSectionCache sectionCache) {
-        int budget = immediateFutures != null ? Integer.MAX_VALUE : this.builder.getSchedulingBudget();
-
-        PriorityQueue<RenderSection> queue = this.rebuildQueues.get(updateType);
-
+    /**
+     * Submits rebuild tasks for the queued sections in order of priority. Important rebuilds (and all rebuilds, if
+     * {@code allImmediately} is true) are always submitted and are added to {@code immediateFutures} so that the
+     * caller can wait on them. Other rebuilds are submitted until the scheduling budget of the builder runs out, or
+     * if {@code useTimeBudget} is true, until the time budget for this frame runs out or the workers are saturated.
+     * The rest stay queued for the following frames.
+     */
+    private void submitRebuildTasks(LinkedList<CompletableFuture<ChunkBuildResult>> immediateFutures, boolean allImmediately,
+                                    boolean useTimeBudget) {
         var frame = this.currentFrame;
+        var pendingUploads = useTimeBudget ? this.builder.getPendingResultCount() : 0;
 
-        while (budget > 0 && !queue.isEmpty()) {
-            RenderSection section = queue.dequeue();
+        RenderSection section;
 
-            if (section.isDisposed()) {
-                continue;
-            }
+        while ((section = this.rebuildScheduler.peek()) != null) {
+            boolean immediate = allImmediately || section.getPendingUpdate().isImportant();
 
-            // Sections can move between update queues, but they won't be removed from the queue they were
-            // previously in to save CPU cycles. We just filter any changed entries here instead.
-            if (section.getPendingUpdate() != updateType) {
-                continue;
+            if (!immediate && !this.canScheduleTask(useTimeBudget, pendingUploads)) {
+                break;
             }
 
+            this.rebuildScheduler.dequeue();
+
+            // The quads of the last rebuild can only be lit again if no other rebuild of the section is still pending,
+            // since its result would be discarded in favour of the light update
+            boolean lightOnly = section.getPendingUpdate() == ChunkUpdateType.LIGHT_UPDATE && !section.isRebuildPending();
+
             section.cancelRebuild();
 
-            ChunkRenderBuildTask task = this.createRebuildTask(sectionCache, section, frame);
+            long start = System.nanoTime();
+
+            ChunkRenderBuildTask task = this.createRebuildTask(section, frame, lightOnly);
+
+            // The translucent quads of the section will be sorted as part of the rebuild
+            section.setSortFuture(null, this.cameraX, this.cameraY, this.cameraZ);
+
+            if (useTimeBudget) {
+                this.buildTimeBudget.recordPreparation(System.nanoTime() - start);
+            }
             CompletableFuture<?> future;
 
-            if (immediateFutures != null) {
+            if (immediate) {
                 CompletableFuture<ChunkBuildResult> immediateFuture = this.builder.schedule(task);
                 immediateFutures.add(immediateFuture);
 
@@ -485,9 +1043,60 @@ public class RenderSectionManager {
             }
 
             section.setRebuildFuture(future, frame);
+        }
+    }
+
+    /**
+     * Submits tasks to sort the translucent quads of the visible sections which the camera has moved away from since
+     * they were last sorted. The nearest sections are sorted first, since the order of their quads changes the most as
+     * the camera moves, and at most {@link RenderSectionManager#MAX_SORT_TASKS_PER_FRAME} sections are sorted in each
+     * frame. Sections which are waiting for a rebuild are skipped, since the rebuild will sort them anyway.
+     */
+    private void submitSortTasks() {
+        var candidates = this.sortCandidates;
+
+        float minDistanceSq = SORT_CAMERA_DISTANCE * SORT_CAMERA_DISTANCE;
+
+        for (var section : this.translucentSections) {
+            if (section.isSortPending() || section.isRebuildPending() ||
+                    section.getSortCameraDistanceSq(this.cameraX, this.cameraY, this.cameraZ) < minDistanceSq ||
+                    !this.isSectionVisible(section.getChunkX(), section.getChunkY(), section.getChunkZ())) {
+                continue;
+            }
+
+            candidates.add(section);
+        }
+
+        if (candidates.size() > MAX_SORT_TASKS_PER_FRAME) {
+            candidates.sort(Comparator.comparingDouble(this::getDistanceSq));
+        }
+
+        for (int i = 0; i < Math.min(candidates.size(), MAX_SORT_TASKS_PER_FRAME); i++) {
+            var section = candidates.get(i);
+
+            var task = new ChunkRenderSortTask(section, section.getTranslucentQuads(), this.currentFrame,
+                    this.cameraX - section.getOriginX(), this.cameraY - section.getOriginY(), this.cameraZ - section.getOriginZ());
+
+            section.setSortFuture(this.builder.scheduleDeferred(task), this.cameraX, this.cameraY, this.cameraZ);
+        }
 
-            budget--;
+        candidates.clear();
+    }
+
+    private float getDistanceSq(RenderSection section) {
+        float dx = this.cameraX - (section.getOriginX() + 8.0f);
+        float dy = this.cameraY - (section.getOriginY() + 8.0f);
+        float dz = this.cameraZ - (section.getOriginZ() + 8.0f);
+
+        return (dx * dx) + (dy * dy) + (dz * dz);
+    }
+
+    private boolean canScheduleTask(boolean useTimeBudget, int pendingUploads) {
+        if (useTimeBudget) {
+            return !this.builder.isSaturated() && this.buildTimeBudget.canPrepareTask(pendingUploads);
         }
+
+        return this.builder.getSchedulingBudget() > 0;
     }
 
     /**
@@ -522,14 +1131,28 @@ public class RenderSectionManager {
         }
     }
 
-    public ChunkRenderBuildTask createRebuildTask(ClonedChunkSectionCache sectionCache, RenderSection render, int frame) {
-        ChunkRenderContext context = WorldSlice.prepare(this.world, render.getChunkPos(), sectionCache);
+    /**
+     * @param lightOnly True if only the light of the section has changed since it was last built
+     */
+    public ChunkRenderBuildTask createRebuildTask(RenderSection render, int frame, boolean lightOnly) {
+        ChunkRenderContext context = WorldSlice.prepare(this.world, render.getChunkPos(), this.sectionCache);
 
         if (context == null) {
             return new ChunkRenderEmptyBuildTask(render, frame);
         }
 
-        return new ChunkRenderRebuildTask(render, context, frame);
+        float cameraX = this.cameraX - render.getOriginX();
+        float cameraY = this.cameraY - render.getOriginY();
+        float cameraZ = this.cameraZ - render.getOriginZ();
+
+        ChunkRenderData data = render.getData();
+
+        if (lightOnly && data.getLightUpdateData() != null) {
+            return new ChunkRenderRelightTask(render, context, data, frame, render.getFingerprint(), cameraX, cameraY, cameraZ);
+        }
+
+        return new ChunkRenderRebuildTask(render, context, frame, render.getFingerprint(), this.meshCache,
+                cameraX, cameraY, cameraZ);
     }
 
     public void markGraphDirty() {
@@ -537,7 +1160,8 @@ public class RenderSectionManager {
     }
 
     public boolean isGraphDirty() {
-        return this.needsUpdate;
+        // An asynchronous search which is still pending needs to be completed by the next update
+        return this.needsUpdate || this.pendingSearch != null;
     }
 
     public ChunkBuilder getBuilder() {
@@ -545,7 +1169,23 @@ public class RenderSectionManager {
     }
 
     public void destroy() {
-        this.resetLists();
+        // The results of the search and the changes deferred until it finished are discarded, since applying them
+        // would queue rebuilds and allocate regions for a renderer which is being torn down
+        if (this.pendingSearch != null) {
+            this.pendingSearch.join();
+            this.pendingSearch = null;
+        }
+
+        this.deferredGraphChanges.clear();
+
+        if (this.asyncSearchExecutor != null) {
+            this.asyncSearchExecutor.shutdown();
+        }
+
+        this.lists.clear();
+        this.searchLists.clear();
+        this.rebuildScheduler.clear();
+        this.translucentSections.clear();
 
         try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
             this.regions.delete(commandList);
@@ -553,6 +1193,10 @@ public class RenderSectionManager {
 
         this.chunkRenderer.delete();
         this.builder.stopWorkers();
+
+        if (this.meshCache != null) {
+            this.meshCache.shutdown();
+        }
     }
 
     public int getTotalSections() {
@@ -560,10 +1204,14 @@ public class RenderSectionManager {
     }
 
     public int getVisibleChunkCount() {
-        return this.chunkRenderList.getCount();
+        return this.lists.chunkRenderList.getCount();
     }
 
     public void scheduleRebuild(int x, int y, int z, boolean important) {
+        // Rebuilds are requested whenever the blocks or light of a section change, so any copy of the section which
+        // was cloned before now is out of date
+        this.sectionCache.invalidate(x, y, z);
+
         RenderSection section = this.state.sections[this.state.getIndex(x, y, z)];
 
         if (section != null && section.isBuilt()) {
@@ -577,39 +1225,54 @@ public class RenderSectionManager {
         }
     }
 
+    /**
+     * Schedules an update for a section whose light has changed, but whose blocks haven't. If the quads of the section
+     * weren't kept by its last rebuild, it will be rebuilt instead.
+     */
+    public void scheduleLightUpdate(int x, int y, int z) {
+        this.sectionCache.invalidate(x, y, z);
+
+        RenderSection section = this.state.sections[this.state.getIndex(x, y, z)];
+
+        if (section != null && section.isBuilt()) {
+            section.markForUpdate(ChunkUpdateType.LIGHT_UPDATE);
+
+            this.needsUpdate = true;
+        }
+    }
+
     public void onChunkRenderUpdates(int x, int y, int z, ChunkRenderData data) {
         ChunkOcclusionData occlusionData = data.getOcclusionData();
-        this.state.visibilityData[this.state.getIndex(x, y, z)] = calculateVisibilityData(occlusionData);
-    }
+        long visibilityData = calculateVisibilityData(occlusionData);
 
-    private void initSearch(Camera camera, Frustum frustum, int frame, boolean spectator) {
-        this.currentFrame = frame;
-        this.frustum = frustum;
-        this.useOcclusionCulling = MinecraftClient.getInstance().chunkCullingEnabled;
+        this.modifyGraph(() -> this.setVisibilityData(this.state.getIndex(x, y, z), visibilityData));
+    }
 
-        this.iterationQueue.clear();
+    private void setVisibilityData(int id, long visibilityData) {
+        if (this.state.visibilityData[id] != visibilityData) {
+            this.state.visibilityData[id] = visibilityData;
+            this.reachabilityDirty = true;
 
-        BlockPos origin = camera.getBlockPos();
+            if (this.bitsetSearch != null) {
+                this.bitsetSearch.setSection(id, visibilityData);
+            }
+        }
+    }
 
-        final int chunkX = origin.getX() >> 4;
-        final int chunkY = origin.getY() >> 4;
-        final int chunkZ = origin.getZ() >> 4;
+    private void initSearch(boolean reachabilityOnly) {
+        this.iterationQueue.clear();
 
-        this.centerChunkX = chunkX;
-        this.centerChunkY = chunkY;
-        this.centerChunkZ = chunkZ;
+        final int chunkX = this.centerChunkX;
+        final int chunkY = this.centerChunkY;
+        final int chunkZ = this.centerChunkZ;
 
         int rootRenderId = this.state.getIndex(chunkX, chunkY, chunkZ);
         var rootRender = this.state.sections[rootRenderId];
 
         if (rootRender != null) {
-            if (spectator && this.world.getBlockState(origin).isOpaqueFullCube(this.world, origin)) {
-                this.useOcclusionCulling = false;
-            }
-
             this.addSectionToQueue(rootRenderId);
         } else {
-            int chunkTop = MathHelper.clamp(origin.getY() >> 4, this.world.getBottomSectionCoord(), this.world.getTopSectionCoord() - 1);
+            int chunkTop = MathHelper.clamp(chunkY, this.bottomSectionCoord, this.topSectionCoord - 1);
 
             IntArrayList sorted = new IntArrayList();
 
@@ -617,7 +1280,15 @@ public class RenderSectionManager {
                 for (int z2 = -this.renderDistance; z2 <= this.renderDistance; ++z2) {
                     var sectionId = this.state.getIndex(chunkX + x2, chunkTop, chunkZ + z2);
 
-                    if (this.state.sections[sectionId] == null || this.isCulledByFrustum(chunkX + x2, chunkTop, chunkZ + z2)) {
+                    if (this.state.sections[sectionId] == null) {
+                        continue;
+                    }
+
+                    if (!reachabilityOnly && this.isCulledByFrustum(chunkX + x2, chunkTop, chunkZ + z2)) {
+                        continue;
+                    }
+
+                    if (!reachabilityOnly && this.useFogCulling && this.isCulledByFog(chunkX + x2, chunkTop, chunkZ + z2)) {
                         continue;
                     }
 
@@ -648,77 +1319,6 @@ public class RenderSectionManager {
         }
     }
 
-    private boolean raycast(final int x0, final int y0, final int z0, final int x1, final int y1, final int z1)  {
-        if (y1 <= this.bottomSectionCoord || y1 >= this.topSectionCoord) {
-            return false;
-        }
-
-        final int deltaX = x1 - x0;
-        final int deltaY = y1 - y0;
-        final int deltaZ = z1 - z0;
-
-        final int lenX = Math.abs(deltaX);
-        final int lenY = Math.abs(deltaY);
-        final int lenZ = Math.abs(deltaZ);
-
-        final int longest = Math.max(lenX, Math.max(lenY, lenZ));
-
-        final int signX = Integer.compare(deltaX, 0);
-        final int signY = Integer.compare(deltaY, 0);
-        final int signZ = Integer.compare(deltaZ, 0);
-
-        // Divide by 2
-        int errX = longest >> 1;
-        int errY = longest >> 1;
-        int errZ = longest >> 1;
-
-        int x = x0;
-        int y = y0;
-        int z = z0;
-
-        int valid = 0;
-
-        for (int step = 0; step < longest; step++) {
-            errX -= lenX;
-            errY -= lenY;
-            errZ -= lenZ;
-
-            if (errX < 0) {
-                errX += longest;
-                x += signX;
-            }
-
-            if (errY < 0) {
-                errY += longest;
-                y += signY;
-            }
-
-            if (errZ < 0) {
-                errZ += longest;
-                z += signZ;
-            }
-
-            if (BitArray.get(this.state.visible, this.state.getIndex(x, y, z))) {
-                valid++;
-            } else {
-                switch (this.frustumCheck(x, y, z)) {
-                    case Frustum.Visibility.OUTSIDE:
-                        return false;
-                    case Frustum.Visibility.INTERSECT:
-                        break;
-                    case Frustum.Visibility.INSIDE:
-                        return true;
-                }
-            }
-
-            if (valid >= 5) {
-                break;
-            }
-        }
-
-        return false;
-    }
-
     @Deprecated
     private void addSectionToQueue(int sectionId) {
         this.iterationQueue.add(sectionId);
@@ -743,10 +1343,50 @@ public class RenderSectionManager {
         list.add(String.format("Device buffer objects: %d", count));
         list.add(String.format("Device memory: %d/%d MiB", MathUtil.toMib(deviceUsed), MathUtil.toMib(deviceAllocated)));
         list.add(String.format("Staging buffer: %s", this.regions.getStagingBuffer().toString()));
+        list.add(String.format("Skipped rebuilds: %d", this.skippedRebuilds));
+
+        if (this.meshCache != null) {
+            list.add(String.format("Mesh cache: %d hits, %d misses", this.meshCache.getHits(), this.meshCache.getMisses()));
+        }
 
         return list;
     }
 
+    private boolean isCulledByFog(int sectionId) {
+        var section = this.state.sections[sectionId];
+
+        return this.isCulledByFog(section.getChunkX(), section.getChunkY(), section.getChunkZ());
+    }
+
+    /**
+     * @return True if the nearest point of the section is beyond the end of the fog, meaning the section is entirely
+     * hidden by it
+     */
+    private boolean isCulledByFog(int chunkX, int chunkY, int chunkZ) {
+        float minX = chunkX << 4;
+        float minY = chunkY << 4;
+        float minZ = chunkZ << 4;
+
+        float dx = Math.max(0.0f, Math.max(minX - this.cameraX, this.cameraX - (minX + 16.0f)));
+        float dy = Math.max(0.0f, Math.max(minY - this.cameraY, this.cameraY - (minY + 16.0f)));
+        float dz = Math.max(0.0f, Math.max(minZ - this.cameraZ, this.cameraZ - (minZ + 16.0f)));
+
+        float fogEndSq = this.fogEnd * this.fogEnd;
+
+        if (this.useCylindricalFog) {
+            // Cylindrical fog uses the greater of the horizontal and vertical distances
+            return (dx * dx) + (dz * dz) > fogEndSq || dy > this.fogEnd;
+        }
+
+        return (dx * dx) + (dy * dy) + (dz * dz) > fogEndSq;
+    }
+
+    private boolean isCulledByFrustum(int sectionId) {
+        var section = this.state.sections[sectionId];
+
+        return this.isCulledByFrustum(section.getChunkX(), section.getChunkY(), section.getChunkZ());
+    }
+
     private boolean isCulledByFrustum(int chunkX, int chunkY, int chunkZ) {
         return this.frustumCheck(chunkX, chunkY, chunkZ) == Frustum.Visibility.OUTSIDE;
     }
@@ -759,20 +1399,68 @@ public class RenderSectionManager {
             return res;
         }
 
-        float x = (chunkX << 4);
-        float y = (chunkY << 4);
-        float z = (chunkZ << 4);
+        // Sections within a region which is fully inside or outside the frustum share the same result
+        int frustumResult = this.regionFrustumCheck(chunkX, chunkY, chunkZ);
+
+        if (frustumResult == Frustum.Visibility.INTERSECT) {
+            float x = (chunkX << 4);
+            float y = (chunkY << 4);
+            float z = (chunkZ << 4);
+
+            frustumResult = this.frustum.testBox(x, y, z, x + 16.0f, y + 16.0f, z + 16.0f);
+        }
 
-        int frustumResult = this.frustum.testBox(x, y, z, x + 16.0f, y + 16.0f, z + 16.0f);
         state.frustumCache[id>>2] = (byte) (cache|(frustumResult<<shift));
         return frustumResult;
     }
 
-    public void loadChunk(int x, int z) {
-        for (int y = this.world.getBottomSectionCoord(); y < this.world.getTopSectionCoord(); y++) {
-            this.loadSection(x, y, z);
+    private int regionFrustumCheck(int chunkX, int chunkY, int chunkZ) {
+        int regionX = Math.floorDiv(chunkX, RenderRegion.REGION_WIDTH);
+        int regionY = Math.floorDiv(chunkY, RenderRegion.REGION_HEIGHT);
+        int regionZ = Math.floorDiv(chunkZ, RenderRegion.REGION_LENGTH);
+
+        int id = this.state.getRegionIndex(regionX, regionY, regionZ);
+        int result = this.state.regionFrustumCache[id];
+
+        if (result != 0) {
+            return result;
         }
 
+        float x = (regionX * RenderRegion.REGION_WIDTH) << 4;
+        float y = (regionY * RenderRegion.REGION_HEIGHT) << 4;
+        float z = (regionZ * RenderRegion.REGION_LENGTH) << 4;
+
+        result = this.frustum.testBox(x, y, z,
+                x + (RenderRegion.REGION_WIDTH * 16.0f), y + (RenderRegion.REGION_HEIGHT * 16.0f), z + (RenderRegion.REGION_LENGTH * 16.0f));
+
+        this.state.regionFrustumCache[id] = (byte) result;
+
+        return result;
+    }
+
+    /**
+     * Called when the block or light data of a chunk column has been received from the server.
+     */
+    public void onChunkDataChanged(int x, int z) {
+        this.sectionCache.invalidateColumn(x, z);
+    }
+
+    /**
+     * Called when a chunk column has been unloaded by the client world.
+     */
+    public void onChunkDataRemoved(int x, int z) {
+        this.sectionCache.removeColumn(x, z);
+    }
+
+    public void loadChunk(int x, int z) {
+        this.modifyGraph(() -> {
+            for (int y = this.bottomSectionCoord; y < this.topSectionCoord; y++) {
+                this.loadSection(x, y, z);
+            }
+
+            this.reachabilityDirty = true;
+        });
+
         this.needsUpdate = true;
     }
 
@@ -788,6 +1476,10 @@ public class RenderSectionManager {
         this.state.sections[id] = render;
         this.state.visibilityData[id] = State.DEFAULT_VISIBILITY_DATA;
 
+        if (this.bitsetSearch != null) {
+            this.bitsetSearch.setSection(id, State.DEFAULT_VISIBILITY_DATA);
+        }
+
         Chunk chunk = this.world.getChunk(x, z);
         ChunkSection section = chunk.getSectionArray()[this.world.sectionCoordToIndex(y)];
 
@@ -802,9 +1494,13 @@ public class RenderSectionManager {
 
 
     public void unloadChunk(int x, int z) {
-        for (int y = this.world.getBottomSectionCoord(); y < this.world.getTopSectionCoord(); y++) {
-            this.unloadSection(x, y, z);
-        }
+        this.modifyGraph(() -> {
+            for (int y = this.bottomSectionCoord; y < this.topSectionCoord; y++) {
+                this.unloadSection(x, y, z);
+            }
+
+            this.reachabilityDirty = true;
+        });
 
         this.needsUpdate = true;
     }
@@ -820,6 +1516,9 @@ public class RenderSectionManager {
         section.cancelRebuild();
         section.dispose();
 
+        this.rebuildScheduler.remove(section);
+        this.translucentSections.remove(section);
+
         var region = this.regions.getRegion(section.getRegionId());
 
         if (region != null) {
@@ -828,5 +1527,9 @@ public class RenderSectionManager {
 
         this.state.sections[id] = null;
         this.state.sectionCount--;
+
+        if (this.bitsetSearch != null) {
+            this.bitsetSearch.removeSection(id);
+        }
     }
 }
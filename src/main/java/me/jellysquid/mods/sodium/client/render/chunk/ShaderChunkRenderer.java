@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
 import me.jellysquid.mods.sodium.client.gl.shader.*;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
@@ -67,7 +68,10 @@ public abstract class ShaderChunkRenderer implements ChunkRenderer {
     }
 
     protected void begin(BlockRenderPass pass) {
-        ChunkShaderOptions options = new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass, this.vertexType);
+        // Only the passes which merge faces contain quads with repeating textures
+        boolean textureTiling = SodiumClientMod.options().performance.useGreedyMeshing && !pass.isTranslucent();
+
+        ChunkShaderOptions options = new ChunkShaderOptions(ChunkFogMode.SMOOTH, pass, this.vertexType, textureTiling);
 
         this.activeProgram = this.compileProgram(options);
         this.activeProgram.bind();
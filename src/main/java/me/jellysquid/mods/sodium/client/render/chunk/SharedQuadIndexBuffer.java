@@ -0,0 +1,80 @@
+package me.jellysquid.mods.sodium.client.render.chunk;
+
+import me.jellysquid.mods.sodium.client.gl.buffer.GlBufferUsage;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
+import me.jellysquid.mods.sodium.client.gl.device.CommandList;
+import me.jellysquid.mods.sodium.client.gl.tessellation.GlIndexType;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadWinding;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An index buffer which is shared by all chunk meshes. Since every quad of a chunk mesh is made up of four consecutive
+ * vertices with the same winding, the indices of any range of quads are the same sequence offset by the first vertex
+ * of the range. Draw commands can then use the same indices starting from the beginning of this buffer, with the first
+ * vertex of the range passed as the base vertex.
+ *
+ * The buffer is re-used when it grows, so that existing vertex arrays which reference it stay valid.
+ */
+public class SharedQuadIndexBuffer {
+    public static final GlIndexType INDEX_TYPE = GlIndexType.UNSIGNED_INT;
+
+    private static final int INITIAL_QUAD_CAPACITY = 4096;
+
+    private final GlMutableBuffer buffer;
+    private int quadCapacity;
+
+    public SharedQuadIndexBuffer(CommandList commandList) {
+        this.buffer = commandList.createMutableBuffer();
+        this.grow(commandList, INITIAL_QUAD_CAPACITY);
+    }
+
+    /**
+     * Makes sure that the buffer contains the indices for at least the given number of quads.
+     */
+    public void ensureCapacity(CommandList commandList, int quadCount) {
+        if (quadCount > this.quadCapacity) {
+            this.grow(commandList, Math.max(quadCount, this.quadCapacity * 2));
+        }
+    }
+
+    private void grow(CommandList commandList, int quadCapacity) {
+        int[] winding = ModelQuadWinding.CLOCKWISE.getIndices();
+
+        ByteBuffer data = MemoryUtil.memAlloc(quadCapacity * winding.length * INDEX_TYPE.getStride());
+
+        try {
+            for (int quad = 0; quad < quadCapacity; quad++) {
+                int vertexStart = quad * 4;
+
+                for (int index : winding) {
+                    data.putInt(vertexStart + index);
+                }
+            }
+
+            data.flip();
+
+            commandList.uploadData(this.buffer, data, GlBufferUsage.STATIC_DRAW);
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+
+        this.quadCapacity = quadCapacity;
+    }
+
+    public GlMutableBuffer getBufferObject() {
+        return this.buffer;
+    }
+
+    public void delete(CommandList commandList) {
+        commandList.deleteBuffer(this.buffer);
+    }
+
+    /**
+     * @return The number of indices needed to draw the given number of vertices
+     */
+    public static int getIndexCount(int vertexCount) {
+        return (vertexCount / 4) * 6;
+    }
+}
@@ -1,36 +1,47 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
-import me.jellysquid.mods.sodium.client.gl.buffer.IndexedVertexData;
-import me.jellysquid.mods.sodium.client.gl.util.ElementRange;
-import me.jellysquid.mods.sodium.client.model.IndexBufferBuilder;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferBuilder;
 import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.BakedChunkModelBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkQuadMerger;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkLightUpdateData;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.util.NativeBuffer;
 import net.minecraft.client.render.RenderLayer;
+import org.lwjgl.system.MemoryUtil;
 
-import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
-import java.util.Objects;
 
 /**
  * A collection of temporary buffers for each worker thread which will be used to build chunk meshes for given render
  * passes. This makes a best-effort attempt to pick a suitable size for each scratch buffer, but will never try to
  * shrink a buffer.
+ *
+ * The vertices of each render pass are kept in a separate buffer for each quad facing, and the buffers are joined
+ * together when the mesh is created. This keeps the quads of each facing in a contiguous range of vertices, so that
+ * they can be drawn with the shared quad index buffer instead of needing their own indices.
  */
 public class ChunkBuildBuffers {
     private final ChunkModelBuilder[] delegates;
 
-    private final VertexBufferBuilder[] vertexBuffers;
-    private final IndexBufferBuilder[][] indexBuffers;
+    private final VertexBufferBuilder[][] vertexBuffers;
+
+    // The merger of each render pass, or null for passes which don't merge faces
+    private final ChunkQuadMerger[] quadMergers;
+
+    // The quads written by the current build, or null if they aren't kept for light updates
+    private final ChunkLightUpdateData.Builder lightUpdates;
 
     private final ChunkVertexType vertexType;
 
@@ -42,37 +53,57 @@ public class ChunkBuildBuffers {
 
         this.delegates = new ChunkModelBuilder[BlockRenderPass.COUNT];
 
-        this.vertexBuffers = new VertexBufferBuilder[BlockRenderPass.COUNT];
-        this.indexBuffers = new IndexBufferBuilder[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
+        this.vertexBuffers = new VertexBufferBuilder[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
+        this.quadMergers = new ChunkQuadMerger[BlockRenderPass.COUNT];
+
+        boolean useGreedyMeshing = SodiumClientMod.options().performance.useGreedyMeshing;
+
+        // Merged faces can't be lit again on their own, since whether they can be merged depends on their light
+        this.lightUpdates = SodiumClientMod.options().performance.useLightOnlyUpdates && !useGreedyMeshing ?
+                new ChunkLightUpdateData.Builder() : null;
 
         for (BlockRenderPass pass : BlockRenderPass.VALUES) {
-            IndexBufferBuilder[] indexBuffers = this.indexBuffers[pass.ordinal()];
+            VertexBufferBuilder[] vertexBuffers = this.vertexBuffers[pass.ordinal()];
 
             for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
-                indexBuffers[facing] = new IndexBufferBuilder(1024);
+                vertexBuffers[facing] = new VertexBufferBuilder(this.vertexType.getBufferVertexFormat(),
+                        pass.getLayer().getExpectedBufferSize() / ModelQuadFacing.COUNT);
             }
 
-            this.vertexBuffers[pass.ordinal()] = new VertexBufferBuilder(this.vertexType.getBufferVertexFormat(),
-                    pass.getLayer().getExpectedBufferSize());
+            // Merged faces can't be sorted, so translucent passes never use them
+            if (useGreedyMeshing && !pass.isTranslucent()) {
+                this.quadMergers[pass.ordinal()] = new ChunkQuadMerger();
+            }
         }
     }
 
     public void init(ChunkRenderData.Builder renderData, int chunkId) {
-        for (VertexBufferBuilder vertexBuffer : this.vertexBuffers) {
-            vertexBuffer.start();
+        for (VertexBufferBuilder[] vertexBuffers : this.vertexBuffers) {
+            for (VertexBufferBuilder vertexBuffer : vertexBuffers) {
+                vertexBuffer.start();
+            }
         }
 
-        for (IndexBufferBuilder[] indexBuffers : this.indexBuffers) {
-            for (IndexBufferBuilder indexBuffer : indexBuffers) {
-                indexBuffer.start();
+        for (ChunkQuadMerger quadMerger : this.quadMergers) {
+            if (quadMerger != null) {
+                // A previous build may have been cancelled before its merged faces were written
+                quadMerger.clear();
             }
         }
 
+        if (this.lightUpdates != null) {
+            this.lightUpdates.clear();
+        }
+
         for (int i = 0; i < this.delegates.length; i++) {
-            ModelVertexSink vertexSink = this.vertexType.createBufferWriter(this.vertexBuffers[i]);
-            IndexBufferBuilder[] indexBuffers = this.indexBuffers[i];
+            ModelVertexSink[] vertexSinks = new ModelVertexSink[ModelQuadFacing.COUNT];
+
+            for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                vertexSinks[facing] = this.vertexType.createBufferWriter(this.vertexBuffers[i][facing]);
+            }
 
-            this.delegates[i] = new BakedChunkModelBuilder(indexBuffers, vertexSink, renderData, chunkId);
+            this.delegates[i] = new BakedChunkModelBuilder(vertexSinks, this.quadMergers[i], renderData, chunkId,
+                    this.lightUpdates, i);
         }
     }
 
@@ -84,52 +115,109 @@ public class ChunkBuildBuffers {
         return this.delegates[this.renderPassManager.getRenderPassId(layer)];
     }
 
+    public ChunkModelBuilder get(BlockRenderPass pass) {
+        return this.delegates[pass.ordinal()];
+    }
+
     /**
      * Creates immutable baked chunk meshes from all non-empty scratch buffers. This is used after all blocks
      * have been rendered to pass the finished meshes over to the graphics card. This function can be called multiple
      * times to return multiple copies.
      */
     public ChunkMeshData createMesh(BlockRenderPass pass) {
-        NativeBuffer vertexBuffer = this.vertexBuffers[pass.ordinal()].pop();
+        ChunkQuadMerger quadMerger = this.quadMergers[pass.ordinal()];
 
-        if (vertexBuffer == null) {
-            return null;
+        if (quadMerger != null) {
+            quadMerger.flush(this.delegates[pass.ordinal()]);
+        }
+
+        VertexBufferBuilder[] vertexBuffers = this.vertexBuffers[pass.ordinal()];
+
+        int totalBytes = 0;
+
+        for (VertexBufferBuilder vertexBuffer : vertexBuffers) {
+            totalBytes += vertexBuffer.getWriterPosition();
         }
 
-        IndexBufferBuilder.Result[] indexBuffers = Arrays.stream(this.indexBuffers[pass.ordinal()])
-                .map(IndexBufferBuilder::pop)
-                .toArray(IndexBufferBuilder.Result[]::new);
+        if (totalBytes == 0) {
+            return null;
+        }
 
-        NativeBuffer indexBuffer = new NativeBuffer(Arrays.stream(indexBuffers)
-                .filter(Objects::nonNull)
-                .mapToInt(IndexBufferBuilder.Result::getByteSize)
-                .sum());
+        NativeBuffer buffer = new NativeBuffer(totalBytes);
+        long dst = MemoryUtil.memAddress(buffer.getDirectBuffer());
 
-        int indexPointer = 0;
+        int byteOffset = 0;
+        int vertexOffset = 0;
 
-        Map<ModelQuadFacing, ElementRange> ranges = new EnumMap<>(ModelQuadFacing.class);
+        Map<ModelQuadFacing, VertexRange> ranges = new EnumMap<>(ModelQuadFacing.class);
 
         for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
-            IndexBufferBuilder.Result indices = indexBuffers[facing.ordinal()];
+            VertexBufferBuilder vertexBuffer = vertexBuffers[facing.ordinal()];
 
-            if (indices == null) {
+            if (vertexBuffer.isEmpty()) {
                 continue;
             }
 
-            ranges.put(facing, new ElementRange(indexPointer, indices.getCount()));
+            int bytes = vertexBuffer.getWriterPosition();
+            int vertexCount = vertexBuffer.getCount();
 
-            indexPointer = indices.writeTo(indexPointer, indexBuffer.getDirectBuffer());
+            MemoryUtil.memCopy(MemoryUtil.memAddress(vertexBuffer.getDirectBuffer()), dst + byteOffset, bytes);
+
+            ranges.put(facing, new VertexRange(vertexOffset, vertexCount));
+
+            byteOffset += bytes;
+            vertexOffset += vertexCount;
         }
 
-        IndexedVertexData vertexData = new IndexedVertexData(this.vertexType.getCustomVertexFormat(),
-                vertexBuffer, indexBuffer);
+        VertexData vertexData = new VertexData(this.vertexType.getCustomVertexFormat(), buffer);
 
         return new ChunkMeshData(vertexData, ranges);
     }
 
+    /**
+     * Creates the meshes of every render pass which has any geometry. The quads of each translucent render pass are
+     * copied into {@code translucentQuads}, so that they can be sorted again after the mesh has been uploaded, and
+     * their meshes are sorted for the given camera position.
+     *
+     * @param cameraX The x-coordinate of the camera, relative to the origin of the section
+     * @param cameraY The y-coordinate of the camera, relative to the origin of the section
+     * @param cameraZ The z-coordinate of the camera, relative to the origin of the section
+     */
+    public void createMeshes(Map<BlockRenderPass, ChunkMeshData> meshes, Map<BlockRenderPass, TranslucentQuadData> translucentQuads,
+                             float cameraX, float cameraY, float cameraZ) {
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshData mesh = this.createMesh(pass);
+
+            if (mesh == null) {
+                continue;
+            }
+
+            if (pass.isTranslucent()) {
+                TranslucentQuadData quads = TranslucentQuadData.create(mesh.getVertexData().vertexBuffer().getDirectBuffer(),
+                        this.vertexType);
+                translucentQuads.put(pass, quads);
+
+                mesh.getVertexData()
+                        .delete();
+                mesh = quads.createSortedMesh(cameraX, cameraY, cameraZ);
+            }
+
+            meshes.put(pass, mesh);
+        }
+    }
+
+    /**
+     * @return The quads which were written since this context was last initialized, or null if they aren't kept
+     */
+    public ChunkLightUpdateData createLightUpdateData() {
+        return this.lightUpdates != null ? this.lightUpdates.build() : null;
+    }
+
     public void destroy() {
-        for (VertexBufferBuilder builder : this.vertexBuffers) {
-            builder.destroy();
+        for (VertexBufferBuilder[] vertexBuffers : this.vertexBuffers) {
+            for (VertexBufferBuilder builder : vertexBuffers) {
+                builder.destroy();
+            }
         }
     }
 }
@@ -3,8 +3,11 @@ package me.jellysquid.mods.sodium.client.render.chunk.compile;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -16,15 +19,60 @@ public class ChunkBuildResult {
     public final RenderSection section;
     public final ChunkRenderData data;
     public final Map<BlockRenderPass, ChunkMeshData> meshes;
+
+    // The unsorted quads of each translucent render pass, which the translucent meshes were sorted from
+    public final Map<BlockRenderPass, TranslucentQuadData> translucentQuads;
+
+    // The fingerprint of the world slice which the meshes were built from
+    public final long fingerprint;
+
+    // True if the inputs of the section were unchanged, so nothing was built and nothing needs to be uploaded
+    private final boolean unchanged;
+
     public final int timestamp;
 
-    public ChunkBuildResult(RenderSection section, ChunkRenderData data, Map<BlockRenderPass, ChunkMeshData> meshes, int timestamp) {
+    private ChunkBuildResult(RenderSection section, ChunkRenderData data, Map<BlockRenderPass, ChunkMeshData> meshes,
+                             Map<BlockRenderPass, TranslucentQuadData> translucentQuads, long fingerprint,
+                             boolean unchanged, int timestamp) {
         this.section = section;
         this.data = data;
         this.meshes = meshes;
+        this.translucentQuads = translucentQuads;
+        this.fingerprint = fingerprint;
+        this.unchanged = unchanged;
         this.timestamp = timestamp;
     }
 
+    public ChunkBuildResult(RenderSection section, ChunkRenderData data, Map<BlockRenderPass, ChunkMeshData> meshes,
+                            Map<BlockRenderPass, TranslucentQuadData> translucentQuads, long fingerprint, int timestamp) {
+        this(section, data, meshes, translucentQuads, fingerprint, false, timestamp);
+    }
+
+    /**
+     * Creates a partial result, which only replaces the meshes of the given render passes. The render data and the
+     * meshes of any other render passes of the section are left as they are.
+     */
+    public ChunkBuildResult(RenderSection section, Map<BlockRenderPass, ChunkMeshData> meshes,
+                            Map<BlockRenderPass, TranslucentQuadData> translucentQuads, int timestamp) {
+        this(section, null, meshes, translucentQuads, WorldSlice.NO_FINGERPRINT, false, timestamp);
+    }
+
+    /**
+     * Creates a result for a rebuild which was skipped because the section's inputs have the given fingerprint, which
+     * is the same as that of the meshes it already has.
+     */
+    public static ChunkBuildResult unchanged(RenderSection section, long fingerprint, int timestamp) {
+        return new ChunkBuildResult(section, null, Collections.emptyMap(), null, fingerprint, true, timestamp);
+    }
+
+    public boolean isPartial() {
+        return this.data == null && !this.unchanged;
+    }
+
+    public boolean isUnchanged() {
+        return this.unchanged;
+    }
+
     public ChunkMeshData getMesh(BlockRenderPass pass) {
         return this.meshes.get(pass);
     }
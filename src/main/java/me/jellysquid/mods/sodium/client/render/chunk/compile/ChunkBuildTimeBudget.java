@@ -0,0 +1,81 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+/**
+ * Limits the amount of time which the render thread spends preparing chunk build tasks and uploading their results
+ * each frame. The cost of each kind of work is measured as it is performed, and a moving average of the cost is used to
+ * estimate how much more work will fit into the remaining time.
+ *
+ * At least one task is always prepared and one result is always uploaded per frame, so that progress is still made
+ * when the budget is smaller than the cost of a single task.
+ */
+public class ChunkBuildTimeBudget {
+    // The weight of each new sample in the moving averages
+    private static final double SMOOTHING_FACTOR = 0.1;
+
+    // The costs assumed before anything has been measured
+    private static final double DEFAULT_PREPARE_NANOS = 50_000.0;
+    private static final double DEFAULT_UPLOAD_NANOS = 20_000.0;
+
+    private long budgetNanos;
+    private long frameStartTime;
+
+    private int preparedThisFrame;
+
+    private double averagePrepareNanos = DEFAULT_PREPARE_NANOS;
+    private double averageUploadNanos = DEFAULT_UPLOAD_NANOS;
+
+    /**
+     * Starts a new frame with the given budget.
+     * @param budgetMicros The amount of time which can be spent in this frame, in microseconds
+     */
+    public void begin(int budgetMicros) {
+        this.budgetNanos = budgetMicros * 1000L;
+        this.frameStartTime = System.nanoTime();
+        this.preparedThisFrame = 0;
+    }
+
+    /**
+     * @param pendingUploads The number of results which are waiting to be uploaded this frame
+     * @return True if another task can be prepared without exceeding the budget. Half of the budget at most is
+     * reserved for the expected cost of uploading the pending results, so that submitting tasks can't starve uploads.
+     */
+    public boolean canPrepareTask(int pendingUploads) {
+        if (this.preparedThisFrame == 0) {
+            return true;
+        }
+
+        double reserved = Math.min(this.budgetNanos / 2.0, pendingUploads * this.averageUploadNanos);
+
+        return this.getElapsedNanos() + this.averagePrepareNanos + reserved <= this.budgetNanos;
+    }
+
+    /**
+     * Records the time it took to prepare a single task.
+     */
+    public void recordPreparation(long nanos) {
+        this.averagePrepareNanos += (nanos - this.averagePrepareNanos) * SMOOTHING_FACTOR;
+        this.preparedThisFrame++;
+    }
+
+    /**
+     * @return The number of results which can be uploaded in the remaining time, which is always at least one
+     */
+    public int getUploadLimit() {
+        long remaining = this.budgetNanos - this.getElapsedNanos();
+
+        return Math.max(1, (int) (remaining / this.averageUploadNanos));
+    }
+
+    /**
+     * Records the time it took to upload the given number of results.
+     */
+    public void recordUploads(int count, long nanos) {
+        if (count > 0) {
+            this.averageUploadNanos += (((double) nanos / count) - this.averageUploadNanos) * SMOOTHING_FACTOR;
+        }
+    }
+
+    private long getElapsedNanos() {
+        return System.nanoTime() - this.frameStartTime;
+    }
+}
@@ -1,11 +1,13 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
+import com.google.common.collect.Iterators;
 import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.gl.compile.ChunkBuildContext;
 import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderBuildTask;
 import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.BlockStateTable;
 import me.jellysquid.mods.sodium.common.util.collections.QueueDrainingIterator;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.MathHelper;
@@ -34,6 +36,7 @@ public class ChunkBuilder {
 
     private World world;
     private BlockRenderPassManager renderPassManager;
+    private BlockStateTable stateTable;
 
     private final int limitThreads;
     private final ChunkVertexType vertexType;
@@ -54,6 +57,22 @@ public class ChunkBuilder {
         return Math.max(0, this.limitThreads - this.buildQueue.size());
     }
 
+    /**
+     * Returns true if enough tasks are queued to keep every worker thread busy until the next frame. This is used in
+     * place of the scheduling budget when scheduling is limited by time instead, since queueing any more tasks would
+     * only delay the tasks with a higher priority which are scheduled in later frames.
+     */
+    public boolean isSaturated() {
+        return this.buildQueue.size() >= this.limitThreads * 2;
+    }
+
+    /**
+     * @return The number of completed results which are waiting to be drained
+     */
+    public int getPendingResultCount() {
+        return this.deferredResultQueue.size();
+    }
+
     /**
      * Spawns a number of work-stealing threads to process results in the build queue. If the builder is already
      * running, this method does nothing and exits.
@@ -68,7 +87,7 @@ public class ChunkBuilder {
         }
 
         for (int i = 0; i < this.limitThreads; i++) {
-            ChunkBuildContext context = new ChunkBuildContext(this.world, this.vertexType, this.renderPassManager);
+            ChunkBuildContext context = new ChunkBuildContext(this.world, this.stateTable, this.vertexType, this.renderPassManager);
             WorkerRunnable worker = new WorkerRunnable(context);
 
             Thread thread = new Thread(worker, "Chunk Render Task Executor #" + i);
@@ -191,6 +210,7 @@ public class ChunkBuilder {
 
         this.world = world;
         this.renderPassManager = renderPassManager;
+        this.stateTable = new BlockStateTable();
 
         this.startWorkers();
     }
@@ -221,6 +241,13 @@ public class ChunkBuilder {
         return new QueueDrainingIterator<>(this.deferredResultQueue);
     }
 
+    /**
+     * Returns an iterator which drains at most {@code limit} results, leaving any others in the queue.
+     */
+    public Iterator<ChunkBuildResult> createAsyncResultDrain(int limit) {
+        return Iterators.limit(this.createAsyncResultDrain(), limit);
+    }
+
     /**
      * "Steals" a task on the queue and allows the currently calling thread to execute it using locally-allocated
      * resources instead. While this function returns true, the caller should continually execute it so that additional
@@ -238,7 +265,8 @@ public class ChunkBuilder {
         ChunkBuildContext context = this.localContexts.get();
 
         if (context == null) {
-            this.localContexts.set(context = new ChunkBuildContext(this.world, this.vertexType, this.renderPassManager));
+            this.localContexts.set(context = new ChunkBuildContext(this.world, this.stateTable, this.vertexType,
+                    this.renderPassManager));
         }
 
         try {
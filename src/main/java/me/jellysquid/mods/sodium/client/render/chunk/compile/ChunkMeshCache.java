@@ -0,0 +1,688 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+import me.jellysquid.mods.sodium.client.world.BiomeSeedProvider;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
+import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * A persistent cache of the meshes of chunk sections, which is stored under the game directory. When a section is
+ * built, its meshes and render data are written to the cache, keyed by the hash of the section's contents. When a
+ * section with the same contents is built again, such as after rejoining a world or returning to a dimension, its
+ * meshes are read back from the cache instead of being built from its blocks.
+ *
+ * The meshes also depend on the loaded mods, resource packs, block models and graphics settings. A hash of all of
+ * these is computed when the cache is created, and the entries of each state are kept in a separate directory, which
+ * contains another directory for each world and dimension. The directories of other resource states can never be
+ * used again, so they are deleted in the background, but the directories of other worlds and dimensions are kept.
+ *
+ * The size of the cache is bounded by a sweep in the background when it is created. Entries which haven't been used
+ * for {@link #MAX_ENTRY_AGE_DAYS} days are deleted, and then the least recently used entries are deleted until the
+ * cache fits in {@link #MAX_CACHE_SIZE} bytes. Reading an entry marks it as recently used.
+ *
+ * Reads happen on the worker threads which build the sections. Writes are queued to a single background thread, and
+ * are dropped if it falls behind.
+ */
+public class ChunkMeshCache {
+    private static final int MAGIC = 0x534D4331; // "SMC1"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    private static final int MAX_PENDING_WRITES = 256;
+
+    private static final long MAX_ENTRY_AGE_DAYS = 30;
+    private static final long MAX_CACHE_SIZE = 1024L * 1024L * 1024L;
+
+    private final ChunkVertexType vertexType;
+
+    private final Path directory;
+    private final long stateHash;
+
+    // The largest payload which an entry can decompress to. This is far larger than the meshes of any real section,
+    // but bounds the memory which a corrupted entry can make a worker allocate.
+    private final int maxPayloadSize;
+
+    private final ThreadPoolExecutor writeExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ChunkMeshCache(ClientWorld world, ChunkVertexType vertexType) {
+        this.vertexType = vertexType;
+
+        long resourceHash = computeResourceHash(vertexType);
+        long worldHash = computeWorldHash(world);
+
+        this.stateHash = WorldSlice.mixHash(resourceHash, worldHash);
+
+        // Every block face of a section, with room for the additional quads of complex models and the render data
+        this.maxPayloadSize = 16 * 16 * 16 * DirectionUtil.COUNT * 4 * vertexType.getBufferVertexFormat().getStride() * 4;
+
+        Path root = FabricLoader.getInstance()
+                .getGameDir()
+                .resolve("sodium-mesh-cache");
+
+        Path resourceDirectory = root.resolve(HexFormat.of().toHexDigits(resourceHash));
+
+        this.directory = resourceDirectory.resolve(HexFormat.of().toHexDigits(worldHash));
+
+        this.writeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_WRITES), runnable -> {
+                    Thread thread = new Thread(runnable, "Chunk Mesh Cache Writer");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+
+        this.writeExecutor.execute(() -> {
+            deleteOtherStates(root, resourceDirectory);
+            sweep(resourceDirectory);
+        });
+    }
+
+    /**
+     * Reads the meshes of a section from the cache.
+     *
+     * @param contentHash The hash of the section's contents, from {@link WorldSlice#computeContentHash()}
+     * @param fingerprint The fingerprint of the section, which the result will carry
+     * @return The result of the build, or null if the section isn't in the cache or the entry couldn't be used
+     */
+    public ChunkBuildResult load(RenderSection render, WorldSlice slice, long contentHash, long fingerprint, int frame,
+                                 float cameraX, float cameraY, float cameraZ) {
+        if (contentHash == WorldSlice.NO_FINGERPRINT) {
+            return null;
+        }
+
+        long key = this.getKey(render, contentHash);
+        Path path = this.getPath(key);
+
+        ChunkBuildResult result = null;
+
+        try {
+            byte[] payload = this.readPayload(path, key);
+
+            if (payload != null) {
+                result = this.decode(render, slice, ByteBuffer.wrap(payload), fingerprint, frame, cameraX, cameraY, cameraZ);
+            }
+        } catch (RuntimeException e) {
+            SodiumClientMod.logger().warn("Failed to decode cached chunk meshes from {}", path, e);
+        }
+
+        if (result != null) {
+            this.hits.incrementAndGet();
+
+            // Mark the entry as recently used, so the sweep evicts it last
+            this.writeExecutor.execute(() -> touch(path));
+        } else {
+            this.misses.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Queues the meshes of a full build result to be written to the cache. This must be called before the result is
+     * uploaded, since the vertex data of its meshes is copied here.
+     *
+     * @param contentHash The hash of the section's contents, from {@link WorldSlice#computeContentHash()}
+     */
+    public void store(RenderSection render, long contentHash, ChunkBuildResult result) {
+        if (contentHash == WorldSlice.NO_FINGERPRINT || this.writeExecutor.getQueue().remainingCapacity() == 0) {
+            return;
+        }
+
+        byte[] payload;
+
+        try {
+            payload = encode(render, result);
+        } catch (IOException e) {
+            SodiumClientMod.logger().warn("Failed to encode chunk meshes for the cache", e);
+            return;
+        }
+
+        if (payload == null) {
+            return;
+        }
+
+        long key = this.getKey(render, contentHash);
+
+        this.writeExecutor.execute(() -> writePayload(this.getPath(key), key, payload));
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public void shutdown() {
+        this.writeExecutor.shutdown();
+    }
+
+    private long getKey(RenderSection render, long contentHash) {
+        // Models can be offset and picked at random based on the position of their block, so the meshes of the same
+        // contents at a different position may not be the same
+        long key = WorldSlice.mixHash(this.stateHash, contentHash);
+        key = WorldSlice.mixHash(key, render.getChunkX());
+        key = WorldSlice.mixHash(key, render.getChunkY());
+        key = WorldSlice.mixHash(key, render.getChunkZ());
+
+        return key;
+    }
+
+    private Path getPath(long key) {
+        String name = HexFormat.of().toHexDigits(key);
+
+        return this.directory.resolve(name.substring(0, 2))
+                .resolve(name + ".bin");
+    }
+
+    private static byte[] encode(RenderSection render, ChunkBuildResult result) throws IOException {
+        ChunkRenderData data = result.data;
+
+        List<RenderLayer> blockLayers = RenderLayer.getBlockLayers();
+
+        // Render layers which are added by mods can't be identified across sessions
+        for (RenderLayer layer : data.getRenderLayers()) {
+            if (!blockLayers.contains(layer)) {
+                return null;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        ChunkRenderBounds bounds = data.getBounds();
+        out.writeFloat(bounds.x1 - render.getOriginX());
+        out.writeFloat(bounds.y1 - render.getOriginY());
+        out.writeFloat(bounds.z1 - render.getOriginZ());
+        out.writeFloat(bounds.x2 - render.getOriginX());
+        out.writeFloat(bounds.y2 - render.getOriginY());
+        out.writeFloat(bounds.z2 - render.getOriginZ());
+
+        out.writeLong(encodeOcclusionData(data.getOcclusionData()));
+        out.writeByte(data.getOpaqueFaces());
+
+        out.writeByte(data.getRenderLayers().size());
+
+        for (RenderLayer layer : data.getRenderLayers()) {
+            out.writeByte(blockLayers.indexOf(layer));
+        }
+
+        out.writeShort(data.getAnimatedSprites().size());
+
+        for (Sprite sprite : data.getAnimatedSprites()) {
+            out.writeUTF(sprite.getAtlasId().toString());
+            out.writeUTF(sprite.getContents().getId().toString());
+        }
+
+        // Block entities are looked up again from the world when the entry is read
+        out.writeShort(data.getBlockEntities().size() + data.getGlobalBlockEntities().size());
+
+        for (BlockEntity entity : data.getBlockEntities()) {
+            out.writeShort(ChunkSectionPos.packLocal(entity.getPos()));
+            out.writeBoolean(true);
+        }
+
+        for (BlockEntity entity : data.getGlobalBlockEntities()) {
+            out.writeShort(ChunkSectionPos.packLocal(entity.getPos()));
+            out.writeBoolean(false);
+        }
+
+        out.writeByte(result.meshes.size());
+
+        for (Map.Entry<BlockRenderPass, ChunkMeshData> entry : result.meshes.entrySet()) {
+            ChunkMeshData mesh = entry.getValue();
+
+            out.writeByte(entry.getKey().ordinal());
+            out.writeByte(mesh.getParts().size());
+
+            for (Map.Entry<ModelQuadFacing, VertexRange> part : mesh.getParts().entrySet()) {
+                out.writeByte(part.getKey().ordinal());
+                out.writeInt(part.getValue().vertexStart());
+                out.writeInt(part.getValue().vertexCount());
+            }
+
+            ByteBuffer vertices = mesh.getVertexData().vertexBuffer().getDirectBuffer();
+            byte[] array = new byte[vertices.remaining()];
+            vertices.get(array);
+
+            out.writeInt(array.length);
+            out.write(array);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private ChunkBuildResult decode(RenderSection render, WorldSlice slice, ByteBuffer in, long fingerprint, int frame,
+                                    float cameraX, float cameraY, float cameraZ) {
+        ChunkRenderData.Builder data = new ChunkRenderData.Builder();
+
+        data.setBounds(new ChunkRenderBounds(
+                in.getFloat() + render.getOriginX(), in.getFloat() + render.getOriginY(), in.getFloat() + render.getOriginZ(),
+                in.getFloat() + render.getOriginX(), in.getFloat() + render.getOriginY(), in.getFloat() + render.getOriginZ()));
+
+        data.setOcclusionData(decodeOcclusionData(in.getLong()));
+        data.setOpaqueFaces(in.get());
+
+        List<RenderLayer> blockLayers = RenderLayer.getBlockLayers();
+
+        for (int i = in.get(); i > 0; i--) {
+            data.addRenderLayer(blockLayers.get(in.get()));
+        }
+
+        MinecraftClient client = MinecraftClient.getInstance();
+
+        for (int i = in.getShort(); i > 0; i--) {
+            Identifier atlasId = new Identifier(readString(in));
+            Identifier spriteId = new Identifier(readString(in));
+
+            Sprite sprite = client.getSpriteAtlas(atlasId)
+                    .apply(spriteId);
+
+            // The missing sprite is returned for sprites which no longer exist
+            if (!sprite.getContents().getId().equals(spriteId)) {
+                return null;
+            }
+
+            data.addSprite(sprite);
+        }
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (int i = in.getShort(); i > 0; i--) {
+            short packedPos = in.getShort();
+            boolean cull = in.get() != 0;
+
+            pos.set(render.getOriginX() + ChunkSectionPos.unpackLocalX(packedPos),
+                    render.getOriginY() + ChunkSectionPos.unpackLocalY(packedPos),
+                    render.getOriginZ() + ChunkSectionPos.unpackLocalZ(packedPos));
+
+            BlockEntity entity = slice.getBlockEntity(pos);
+
+            if (entity == null) {
+                return null;
+            }
+
+            data.addBlockEntity(entity, cull);
+        }
+
+        Map<BlockRenderPass, ChunkMeshData> meshes = new EnumMap<>(BlockRenderPass.class);
+        Map<BlockRenderPass, TranslucentQuadData> translucentQuads = new EnumMap<>(BlockRenderPass.class);
+
+        for (int i = in.get(); i > 0; i--) {
+            BlockRenderPass pass = BlockRenderPass.VALUES[in.get()];
+
+            Map<ModelQuadFacing, VertexRange> parts = new EnumMap<>(ModelQuadFacing.class);
+
+            for (int j = in.get(); j > 0; j--) {
+                ModelQuadFacing facing = ModelQuadFacing.VALUES[in.get()];
+                parts.put(facing, new VertexRange(in.getInt(), in.getInt()));
+            }
+
+            int length = in.getInt();
+
+            // The vertex data is always stored in the native byte order
+            ByteBuffer vertices = in.slice(in.position(), length)
+                    .order(ByteOrder.nativeOrder());
+            in.position(in.position() + length);
+
+            if (pass.isTranslucent()) {
+                // The quads were sorted for the camera position of the build which wrote them, so they're sorted again
+                TranslucentQuadData quads = TranslucentQuadData.create(vertices, this.vertexType);
+                translucentQuads.put(pass, quads);
+
+                meshes.put(pass, quads.createSortedMesh(cameraX, cameraY, cameraZ));
+            } else {
+                NativeBuffer buffer = new NativeBuffer(length);
+                buffer.getDirectBuffer()
+                        .put(vertices);
+
+                meshes.put(pass, new ChunkMeshData(new VertexData(this.vertexType.getCustomVertexFormat(), buffer), parts));
+            }
+        }
+
+        return new ChunkBuildResult(render, data.build(), meshes, translucentQuads, fingerprint, frame);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+
+        // Identifiers only contain ASCII characters, which DataOutput#writeUTF encodes as single bytes
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static long encodeOcclusionData(ChunkOcclusionData data) {
+        long bits = 0;
+
+        for (Direction from : DirectionUtil.ENUMS) {
+            for (Direction to : DirectionUtil.ENUMS) {
+                if (data.isVisibleThrough(from, to)) {
+                    bits |= 1L << ((from.ordinal() * DirectionUtil.COUNT) + to.ordinal());
+                }
+            }
+        }
+
+        return bits;
+    }
+
+    private static ChunkOcclusionData decodeOcclusionData(long bits) {
+        ChunkOcclusionData data = new ChunkOcclusionData();
+
+        for (Direction from : DirectionUtil.ENUMS) {
+            for (Direction to : DirectionUtil.ENUMS) {
+                data.setVisibleThrough(from, to, (bits & (1L << ((from.ordinal() * DirectionUtil.COUNT) + to.ordinal()))) != 0);
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Reads and decompresses the payload of the entry at the given path. The file is memory-mapped, so it is read
+     * directly by the decompressor without being copied first.
+     *
+     * @return The payload of the entry, or null if it doesn't exist, doesn't match the key, or is corrupted
+     */
+    private byte[] readPayload(Path path, long key) {
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            SodiumClientMod.logger().warn("Failed to read cached chunk meshes from {}", path, e);
+            return null;
+        }
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getLong() != key) {
+            return null;
+        }
+
+        int length = buffer.getInt();
+
+        if (length <= 0 || length > this.maxPayloadSize) {
+            SodiumClientMod.logger().warn("Cached chunk meshes at {} have an invalid length ({} bytes)", path, length);
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(buffer);
+
+            if (inflater.inflate(payload) != payload.length || !inflater.finished()) {
+                return null;
+            }
+        } catch (DataFormatException e) {
+            SodiumClientMod.logger().warn("Cached chunk meshes at {} are corrupted", path, e);
+            return null;
+        } finally {
+            inflater.end();
+        }
+
+        return payload;
+    }
+
+    private static void writePayload(Path path, long key, byte[] payload) {
+        try {
+            Files.createDirectories(path.getParent());
+
+            // Entries are written to a temporary file first, so that workers never read a partially written entry
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+            try (OutputStream file = Files.newOutputStream(tempPath)) {
+                DataOutputStream header = new DataOutputStream(file);
+                header.writeInt(MAGIC);
+                header.writeInt(FORMAT_VERSION);
+                header.writeLong(key);
+                header.writeInt(payload.length);
+                header.flush();
+
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+                try (DeflaterOutputStream out = new DeflaterOutputStream(file, deflater)) {
+                    out.write(payload);
+                } finally {
+                    deflater.end();
+                }
+            }
+
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            SodiumClientMod.logger().warn("Failed to write cached chunk meshes to {}", path, e);
+        }
+    }
+
+    private static void deleteOtherStates(Path root, Path current) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        try (Stream<Path> directories = Files.list(root)) {
+            for (Path directory : (Iterable<Path>) directories::iterator) {
+                if (!directory.equals(current)) {
+                    deleteRecursively(directory);
+                }
+            }
+        } catch (IOException e) {
+            SodiumClientMod.logger().warn("Failed to delete outdated chunk mesh caches", e);
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // The entry may have been replaced or evicted in the meantime, which isn't a problem
+        }
+    }
+
+    /**
+     * Deletes the entries of the given resource state which are too old, and then the least recently used entries
+     * until the cache fits in its size limit. The time an entry was last used is its modification time.
+     */
+    private static void sweep(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        record Entry(Path path, long lastUsed, long size) { }
+
+        List<Entry> entries = new ArrayList<>();
+        long minLastUsed = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_ENTRY_AGE_DAYS);
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                BasicFileAttributes attributes;
+
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+
+                long lastUsed = attributes.lastModifiedTime().toMillis();
+
+                if (lastUsed < minLastUsed) {
+                    Files.deleteIfExists(path);
+                } else {
+                    entries.add(new Entry(path, lastUsed, attributes.size()));
+                }
+            }
+
+            long totalSize = entries.stream()
+                    .mapToLong(Entry::size)
+                    .sum();
+
+            if (totalSize <= MAX_CACHE_SIZE) {
+                return;
+            }
+
+            entries.sort(Comparator.comparingLong(Entry::lastUsed));
+
+            for (Entry entry : entries) {
+                if (totalSize <= MAX_CACHE_SIZE) {
+                    break;
+                }
+
+                Files.deleteIfExists(entry.path());
+                totalSize -= entry.size();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            SodiumClientMod.logger().warn("Failed to evict old entries from the chunk mesh cache", e);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path child : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(child);
+            }
+        }
+    }
+
+    /**
+     * Computes a hash of the state of the game which the meshes of every section depend on. This includes the loaded
+     * mods (which also decide the raw IDs of block states), the enabled resource packs, the quads of every block model
+     * and the settings which change how blocks are rendered.
+     */
+    private static long computeResourceHash(ChunkVertexType vertexType) {
+        MinecraftClient client = MinecraftClient.getInstance();
+
+        long hash = FORMAT_VERSION;
+        hash = WorldSlice.mixHash(hash, SharedConstants.getGameVersion().getName().hashCode());
+
+        List<ModContainer> mods = new ArrayList<>(FabricLoader.getInstance().getAllMods());
+        mods.sort(Comparator.comparing(mod -> mod.getMetadata().getId()));
+
+        for (ModContainer mod : mods) {
+            hash = WorldSlice.mixHash(hash, mod.getMetadata().getId().hashCode());
+            hash = WorldSlice.mixHash(hash, mod.getMetadata().getVersion().getFriendlyString().hashCode());
+        }
+
+        for (String pack : client.getResourcePackManager().getEnabledNames()) {
+            hash = WorldSlice.mixHash(hash, pack.hashCode());
+        }
+
+        hash = WorldSlice.mixHash(hash, vertexType.getBufferVertexFormat().getStride());
+        hash = WorldSlice.mixHash(hash, SodiumClientMod.options().performance.useGreedyMeshing ? 1 : 0);
+        hash = WorldSlice.mixHash(hash, client.options.getAo().getValue() ? 1 : 0);
+        hash = WorldSlice.mixHash(hash, client.options.getGraphicsMode().getValue().ordinal());
+
+        return WorldSlice.mixHash(hash, computeModelHash(client));
+    }
+
+    /**
+     * Computes a hash of the properties of a world and dimension which the meshes of its sections depend on, other
+     * than their contents. These are the dimension, the seed which biome colors are blended with, and the brightness
+     * of each side of a block.
+     */
+    private static long computeWorldHash(ClientWorld world) {
+        long hash = world.getRegistryKey().getValue().hashCode();
+        hash = WorldSlice.mixHash(hash, ((BiomeSeedProvider) world).getBiomeSeed());
+
+        for (Direction direction : DirectionUtil.ENUMS) {
+            hash = WorldSlice.mixHash(hash, Float.floatToIntBits(world.getBrightness(direction, true)));
+            hash = WorldSlice.mixHash(hash, Float.floatToIntBits(world.getBrightness(direction, false)));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Hashes the quads of every block model, which catches changes to the models and the layout of the block atlas
+     * that the names of the enabled resource packs don't reveal.
+     */
+    private static long computeModelHash(MinecraftClient client) {
+        Random random = Random.create();
+        long hash = 0;
+
+        for (BlockState state : Block.STATE_IDS) {
+            BakedModel model = client.getBlockRenderManager()
+                    .getModel(state);
+
+            for (int face = 0; face <= DirectionUtil.COUNT; face++) {
+                random.setSeed(42L);
+
+                Direction direction = face < DirectionUtil.COUNT ? DirectionUtil.ENUMS[face] : null;
+
+                for (BakedQuad quad : model.getQuads(state, direction, random)) {
+                    hash = WorldSlice.mixHash(hash, Arrays.hashCode(quad.getVertexData()));
+                    hash = WorldSlice.mixHash(hash, quad.getColorIndex());
+                }
+            }
+        }
+
+        return hash;
+    }
+}
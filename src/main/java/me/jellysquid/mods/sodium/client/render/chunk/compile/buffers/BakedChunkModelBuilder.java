@@ -1,37 +1,46 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.buffers;
 
-import me.jellysquid.mods.sodium.client.model.IndexBufferBuilder;
+import me.jellysquid.mods.sodium.client.model.light.LightMode;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkLightUpdateData;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
 
 public class BakedChunkModelBuilder implements ChunkModelBuilder {
-    private final ModelVertexSink vertexSink;
-    private final IndexBufferBuilder[] indexBufferBuilders;
+    private final ModelVertexSink[] vertexSinks;
+    private final ChunkQuadMerger quadMerger;
 
     private final ChunkRenderData.Builder renderData;
     private final int id;
 
-    public BakedChunkModelBuilder(IndexBufferBuilder[] indexBufferBuilders,
-                                  ModelVertexSink vertexSink,
+    // The recorded quads of every render pass, or null if nothing should be recorded
+    private final ChunkLightUpdateData.Builder lightUpdates;
+    private final int pass;
+
+    public BakedChunkModelBuilder(ModelVertexSink[] vertexSinks,
+                                  ChunkQuadMerger quadMerger,
                                   ChunkRenderData.Builder renderData,
-                                  int chunkId) {
-        this.indexBufferBuilders = indexBufferBuilders;
-        this.vertexSink = vertexSink;
+                                  int chunkId,
+                                  ChunkLightUpdateData.Builder lightUpdates,
+                                  int pass) {
+        this.vertexSinks = vertexSinks;
+        this.quadMerger = quadMerger;
 
         this.renderData = renderData;
         this.id = chunkId;
-    }
 
-    @Override
-    public ModelVertexSink getVertexSink() {
-        return this.vertexSink;
+        this.lightUpdates = lightUpdates;
+        this.pass = pass;
     }
 
     @Override
-    public IndexBufferBuilder getIndexBufferBuilder(ModelQuadFacing facing) {
-        return this.indexBufferBuilders[facing.ordinal()];
+    public ModelVertexSink getVertexSink(ModelQuadFacing facing) {
+        return this.vertexSinks[facing.ordinal()];
     }
 
     @Override
@@ -43,4 +52,23 @@ public class BakedChunkModelBuilder implements ChunkModelBuilder {
     public int getChunkId() {
         return this.id;
     }
+
+    @Override
+    public ChunkQuadMerger getQuadMerger() {
+        return this.quadMerger;
+    }
+
+    @Override
+    public void recordQuad(BlockState state, BlockPos localPos, BakedQuad quad, Direction cullFace, LightMode mode) {
+        if (this.lightUpdates != null) {
+            this.lightUpdates.addQuad(this.pass, state, localPos, quad, cullFace, mode);
+        }
+    }
+
+    @Override
+    public void recordFluid(BlockState state, BlockPos localPos) {
+        if (this.lightUpdates != null) {
+            this.lightUpdates.addFluid(this.pass, state, localPos);
+        }
+    }
 }
@@ -1,16 +1,41 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.buffers;
 
-import me.jellysquid.mods.sodium.client.model.IndexBufferBuilder;
+import me.jellysquid.mods.sodium.client.model.light.LightMode;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
 
 public interface ChunkModelBuilder {
-    ModelVertexSink getVertexSink();
-
-    IndexBufferBuilder getIndexBufferBuilder(ModelQuadFacing facing);
+    /**
+     * @return The vertex sink for quads with the given facing. Each quad is written as four consecutive vertices in
+     * clockwise order, since all quads are drawn using the same shared index buffer.
+     */
+    ModelVertexSink getVertexSink(ModelQuadFacing facing);
 
     void addSprite(Sprite sprite);
 
     int getChunkId();
+
+    /**
+     * @return The merger which collects faces to be merged with their neighbours, or null if faces should always be
+     * rendered as they are
+     */
+    ChunkQuadMerger getQuadMerger();
+
+    /**
+     * Records a quad which was written to this builder, so that it can be lit again later without rebuilding the chunk.
+     * @param localPos The position of the block within the chunk section
+     */
+    void recordQuad(BlockState state, BlockPos localPos, BakedQuad quad, Direction cullFace, LightMode mode);
+
+    /**
+     * Records the fluid of a block which was written to this builder, so that it can be lit again later without
+     * rebuilding the chunk.
+     * @param localPos The position of the block within the chunk section
+     */
+    void recordFluid(BlockState state, BlockPos localPos);
 }
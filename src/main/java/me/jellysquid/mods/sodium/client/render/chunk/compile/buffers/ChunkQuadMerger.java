@@ -0,0 +1,328 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.buffers;
+
+import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Collects the full faces of opaque cubes which have a uniform color and light, and merges adjacent coplanar faces
+ * with the same texture, color and light into larger quads using greedy meshing.
+ *
+ * Since a merged quad spans several blocks, its texture has to be repeated across it. The vertices of a merged quad
+ * all use the minimum texture coordinates of the sprite, and the position of the vertex in tiles along with the size
+ * of the sprite is packed into the unused upper bits of each light-map coordinate. The shader then wraps the texture
+ * coordinates within the bounds of the sprite.
+ */
+public class ChunkQuadMerger {
+    private static final int LAYER_SIZE = 16 * 16;
+    private static final int CELL_COUNT = 16 * LAYER_SIZE;
+
+    // The number of bits used for the tile coordinate of a vertex
+    private static final int TILE_BITS = 5;
+
+    // The smallest and largest sprite sizes (as powers of two) which can be encoded
+    private static final int MIN_SPRITE_SIZE_LOG2 = 3;
+    private static final int MAX_SPRITE_SIZE_LOG2 = 9;
+
+    // The tolerance for matching texture coordinates to the edges of a sprite, relative to the size of the sprite
+    private static final float TEXTURE_EPSILON = 0.05f;
+
+    // The properties of each face, indexed by direction and then by the layer and position of the face within it
+    private final Sprite[][] sprites = new Sprite[DirectionUtil.COUNT][CELL_COUNT];
+    private final int[][] colors = new int[DirectionUtil.COUNT][CELL_COUNT];
+    private final int[][] lights = new int[DirectionUtil.COUNT][CELL_COUNT];
+    private final int[][] shapes = new int[DirectionUtil.COUNT][CELL_COUNT];
+
+    private final int[] faceCounts = new int[DirectionUtil.COUNT];
+
+    /**
+     * Tries to add a face to be merged.
+     * @param face The direction which the face is culled against
+     * @param x The local x-coordinate of the block
+     * @param y The local y-coordinate of the block
+     * @param z The local z-coordinate of the block
+     * @param quad The quad of the face
+     * @param color The color of every vertex of the quad
+     * @param light The light-map coordinates of every vertex of the quad
+     * @return True if the face was added, or false if it can't be merged and needs to be rendered normally
+     */
+    public boolean add(Direction face, int x, int y, int z, ModelQuadView quad, int color, int light) {
+        Sprite sprite = quad.getSprite();
+
+        if (sprite == null || getSpriteSizeCode(sprite.getContents().getWidth()) == 0 ||
+                getSpriteSizeCode(sprite.getContents().getHeight()) == 0) {
+            return false;
+        }
+
+        int dir = face.ordinal();
+        int shape = getShape(dir, quad, sprite);
+
+        if (shape < 0) {
+            return false;
+        }
+
+        int index = getIndex(dir, x, y, z);
+
+        if (this.sprites[dir][index] != null) {
+            return false;
+        }
+
+        this.sprites[dir][index] = sprite;
+        this.colors[dir][index] = color;
+        this.lights[dir][index] = light;
+        this.shapes[dir][index] = shape;
+
+        this.faceCounts[dir]++;
+
+        return true;
+    }
+
+    /**
+     * Merges all the faces which have been added and writes the merged quads to the given model builder. Afterwards,
+     * the merger is empty again.
+     */
+    public void flush(ChunkModelBuilder builder) {
+        for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+            if (this.faceCounts[dir] == 0) {
+                continue;
+            }
+
+            ModelVertexSink vertices = builder.getVertexSink(ModelQuadFacing.fromDirection(DirectionUtil.ENUMS[dir]));
+            vertices.ensureCapacity(this.faceCounts[dir] * 4);
+
+            for (int layer = 0; layer < 16; layer++) {
+                this.mergeLayer(dir, layer, vertices, builder.getChunkId());
+            }
+
+            vertices.flush();
+
+            this.faceCounts[dir] = 0;
+        }
+    }
+
+    /**
+     * Discards any faces which have been added since the last flush.
+     */
+    public void clear() {
+        for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+            if (this.faceCounts[dir] != 0) {
+                Arrays.fill(this.sprites[dir], null);
+                this.faceCounts[dir] = 0;
+            }
+        }
+    }
+
+    private void mergeLayer(int dir, int layer, ModelVertexSink vertices, int chunkId) {
+        Sprite[] sprites = this.sprites[dir];
+
+        int base = layer * LAYER_SIZE;
+
+        for (int b = 0; b < 16; b++) {
+            for (int a = 0; a < 16; a++) {
+                int index = base + (b << 4) + a;
+                Sprite sprite = sprites[index];
+
+                if (sprite == null) {
+                    continue;
+                }
+
+                int width = 1;
+
+                while (a + width < 16 && this.canMerge(dir, index, index + width)) {
+                    width++;
+                }
+
+                int height = 1;
+
+                while (b + height < 16 && this.canMergeRow(dir, index, index + (height << 4), width)) {
+                    height++;
+                }
+
+                this.writeQuad(dir, layer, a, b, width, height, index, vertices, chunkId);
+
+                for (int row = 0; row < height; row++) {
+                    Arrays.fill(sprites, index + (row << 4), index + (row << 4) + width, null);
+                }
+            }
+        }
+    }
+
+    private boolean canMergeRow(int dir, int index, int rowIndex, int width) {
+        for (int i = 0; i < width; i++) {
+            if (!this.canMerge(dir, index, rowIndex + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean canMerge(int dir, int a, int b) {
+        return this.sprites[dir][b] == this.sprites[dir][a] &&
+                this.colors[dir][b] == this.colors[dir][a] &&
+                this.lights[dir][b] == this.lights[dir][a] &&
+                this.shapes[dir][b] == this.shapes[dir][a];
+    }
+
+    private void writeQuad(int dir, int layer, int a0, int b0, int width, int height, int index,
+                           ModelVertexSink vertices, int chunkId) {
+        Sprite sprite = this.sprites[dir][index];
+        int color = this.colors[dir][index];
+        int light = this.lights[dir][index];
+        int shape = this.shapes[dir][index];
+
+        // The texture is always mapped so that u varies along one axis of the plane and v along the other
+        boolean uAlongA = (shape & SHAPE_U_ALONG_B) == 0;
+
+        int tilesU = uAlongA ? width : height;
+        int tilesV = uAlongA ? height : width;
+
+        int sizeCodeU = getSpriteSizeCode(sprite.getContents().getWidth());
+        int sizeCodeV = getSpriteSizeCode(sprite.getContents().getHeight());
+
+        int plane = layer + ((dir & 1) != 0 ? 1 : 0);
+
+        for (int i = 0; i < 4; i++) {
+            int corner = shape >> (i * 4);
+
+            float a = a0 + ((corner & 1) != 0 ? width : 0);
+            float b = b0 + ((corner & 2) != 0 ? height : 0);
+
+            int tileU = (corner & 4) != 0 ? tilesU : 0;
+            int tileV = (corner & 8) != 0 ? tilesV : 0;
+
+            int packedLight = light |
+                    ((tileU | (sizeCodeU << TILE_BITS)) << 8) |
+                    ((tileV | (sizeCodeV << TILE_BITS)) << 24);
+
+            float x, y, z;
+
+            switch (DirectionUtil.getAxis(dir)) {
+                case Y -> { x = a; y = plane; z = b; }
+                case Z -> { x = a; y = b; z = plane; }
+                default -> { x = plane; y = b; z = a; }
+            }
+
+            vertices.writeVertex(x, y, z, color, sprite.getMinU(), sprite.getMinV(), packedLight, chunkId);
+        }
+    }
+
+    // Set in the shape of a face when the u texture coordinate varies along the second axis of the plane
+    private static final int SHAPE_U_ALONG_B = 1 << 16;
+
+    /**
+     * Describes the corner of the face each vertex is at, and the corner of the sprite it's mapped to. Each vertex
+     * takes four bits: the position on each axis of the plane, followed by the texture coordinate on each axis.
+     * @return The shape of the face, or -1 if the quad doesn't exactly cover the face of the block, or if its texture
+     * isn't mapped in a way which can be repeated
+     */
+    private static int getShape(int dir, ModelQuadView quad, Sprite sprite) {
+        float plane = (dir & 1) != 0 ? 1.0f : 0.0f;
+
+        float epsilonU = (sprite.getMaxU() - sprite.getMinU()) * TEXTURE_EPSILON;
+        float epsilonV = (sprite.getMaxV() - sprite.getMinV()) * TEXTURE_EPSILON;
+
+        int shape = 0;
+        int corners = 0;
+
+        int uSameAsA = 0, uSameAsB = 0;
+        int vSameAsA = 0, vSameAsB = 0;
+
+        for (int i = 0; i < 4; i++) {
+            float x = quad.getX(i), y = quad.getY(i), z = quad.getZ(i);
+            float a, b, n;
+
+            switch (DirectionUtil.getAxis(dir)) {
+                case Y -> { a = x; b = z; n = y; }
+                case Z -> { a = x; b = y; n = z; }
+                default -> { a = z; b = y; n = x; }
+            }
+
+            if (n != plane || !isEdge(a) || !isEdge(b)) {
+                return -1;
+            }
+
+            int u = getTextureEdge(quad.getTexU(i), sprite.getMinU(), sprite.getMaxU(), epsilonU);
+            int v = getTextureEdge(quad.getTexV(i), sprite.getMinV(), sprite.getMaxV(), epsilonV);
+
+            if (u < 0 || v < 0) {
+                return -1;
+            }
+
+            int pa = (int) a;
+            int pb = (int) b;
+
+            int corner = pa | (pb << 1);
+
+            // Every vertex must be at a different corner
+            if ((corners & (1 << corner)) != 0) {
+                return -1;
+            }
+
+            corners |= 1 << corner;
+
+            uSameAsA += u == pa ? 1 : 0;
+            uSameAsB += u == pb ? 1 : 0;
+            vSameAsA += v == pa ? 1 : 0;
+            vSameAsB += v == pb ? 1 : 0;
+
+            shape |= (corner | (u << 2) | (v << 3)) << (i * 4);
+        }
+
+        // The texture coordinates must either follow or be the reverse of the position on each axis
+        boolean uAlongA = isAffine(uSameAsA) && isAffine(vSameAsB);
+        boolean uAlongB = isAffine(uSameAsB) && isAffine(vSameAsA);
+
+        if (uAlongA) {
+            return shape;
+        } else if (uAlongB) {
+            return shape | SHAPE_U_ALONG_B;
+        }
+
+        return -1;
+    }
+
+    private static boolean isAffine(int matches) {
+        return matches == 0 || matches == 4;
+    }
+
+    private static boolean isEdge(float value) {
+        return value == 0.0f || value == 1.0f;
+    }
+
+    private static int getTextureEdge(float value, float min, float max, float epsilon) {
+        if (Math.abs(value - min) <= epsilon) {
+            return 0;
+        } else if (Math.abs(value - max) <= epsilon) {
+            return 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return The code for the size of a sprite in pixels, or zero if the size can't be encoded
+     */
+    private static int getSpriteSizeCode(int size) {
+        int log2 = Integer.numberOfTrailingZeros(size);
+
+        if (Integer.bitCount(size) != 1 || log2 < MIN_SPRITE_SIZE_LOG2 || log2 > MAX_SPRITE_SIZE_LOG2) {
+            return 0;
+        }
+
+        return log2 - MIN_SPRITE_SIZE_LOG2 + 1;
+    }
+
+    private static int getIndex(int dir, int x, int y, int z) {
+        return switch (DirectionUtil.getAxis(dir)) {
+            case Y -> (y * LAYER_SIZE) + (z << 4) + x;
+            case Z -> (z * LAYER_SIZE) + (y << 4) + x;
+            case X -> (x * LAYER_SIZE) + (y << 4) + z;
+        };
+    }
+}
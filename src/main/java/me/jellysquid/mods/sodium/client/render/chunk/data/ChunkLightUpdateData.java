@@ -0,0 +1,133 @@
+package me.jellysquid.mods.sodium.client.render.chunk.data;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import me.jellysquid.mods.sodium.client.model.light.LightMode;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+/**
+ * The quads of a chunk section in the order they were written to its meshes, along with everything needed to light
+ * them. When only the light of a section changes, its meshes can be created again from these quads, without visiting
+ * every block of the section or looking up their models.
+ *
+ * Fluids are recorded by their block instead, since their quads aren't kept by any model.
+ */
+public class ChunkLightUpdateData {
+    // The bits of each entry which hold the local position of its block
+    private static final int POSITION_MASK = 0xFFF;
+
+    private static final int CULL_FACE_SHIFT = 12;
+    private static final int CULL_FACE_MASK = 0b111;
+    private static final int CULL_FACE_NONE = 0b111;
+
+    private static final int PASS_SHIFT = 15;
+    private static final int PASS_MASK = 0b111;
+
+    private static final int SMOOTH_LIGHTING_BIT = 1 << 18;
+
+    private final BlockState[] states;
+
+    // The quad of each entry, or null if the entry is the fluid of its block
+    private final BakedQuad[] quads;
+    private final int[] entries;
+
+    private ChunkLightUpdateData(BlockState[] states, BakedQuad[] quads, int[] entries) {
+        this.states = states;
+        this.quads = quads;
+        this.entries = entries;
+    }
+
+    public int size() {
+        return this.entries.length;
+    }
+
+    public BlockState getState(int i) {
+        return this.states[i];
+    }
+
+    /**
+     * @return The quad of the entry, or null if the entry is the fluid of its block
+     */
+    public BakedQuad getQuad(int i) {
+        return this.quads[i];
+    }
+
+    public int getLocalX(int i) {
+        return this.entries[i] & 15;
+    }
+
+    public int getLocalY(int i) {
+        return (this.entries[i] >> 8) & 15;
+    }
+
+    public int getLocalZ(int i) {
+        return (this.entries[i] >> 4) & 15;
+    }
+
+    /**
+     * @return The direction the quad was culled against, or null if it wasn't culled
+     */
+    public Direction getCullFace(int i) {
+        int face = (this.entries[i] >> CULL_FACE_SHIFT) & CULL_FACE_MASK;
+
+        return face == CULL_FACE_NONE ? null : DirectionUtil.ENUMS[face];
+    }
+
+    /**
+     * @return The index of the render pass which the entry was written to
+     */
+    public int getPass(int i) {
+        return (this.entries[i] >> PASS_SHIFT) & PASS_MASK;
+    }
+
+    public LightMode getLightMode(int i) {
+        return (this.entries[i] & SMOOTH_LIGHTING_BIT) != 0 ? LightMode.SMOOTH : LightMode.FLAT;
+    }
+
+    public static class Builder {
+        private final ObjectArrayList<BlockState> states = new ObjectArrayList<>();
+        private final ObjectArrayList<BakedQuad> quads = new ObjectArrayList<>();
+        private final IntArrayList entries = new IntArrayList();
+
+        public void addQuad(int pass, BlockState state, BlockPos localPos, BakedQuad quad, Direction cullFace, LightMode mode) {
+            int entry = encode(pass, localPos, cullFace == null ? CULL_FACE_NONE : cullFace.ordinal());
+
+            if (mode == LightMode.SMOOTH) {
+                entry |= SMOOTH_LIGHTING_BIT;
+            }
+
+            this.add(state, quad, entry);
+        }
+
+        public void addFluid(int pass, BlockState state, BlockPos localPos) {
+            this.add(state, null, encode(pass, localPos, CULL_FACE_NONE));
+        }
+
+        private void add(BlockState state, BakedQuad quad, int entry) {
+            this.states.add(state);
+            this.quads.add(quad);
+            this.entries.add(entry);
+        }
+
+        private static int encode(int pass, BlockPos localPos, int cullFace) {
+            int position = (localPos.getY() << 8) | (localPos.getZ() << 4) | localPos.getX();
+
+            return (position & POSITION_MASK) | (cullFace << CULL_FACE_SHIFT) | (pass << PASS_SHIFT);
+        }
+
+        public void clear() {
+            this.states.clear();
+            this.quads.clear();
+            this.entries.clear();
+        }
+
+        public ChunkLightUpdateData build() {
+            return new ChunkLightUpdateData(this.states.toArray(new BlockState[0]), this.quads.toArray(new BakedQuad[0]),
+                    this.entries.toIntArray());
+        }
+    }
+}
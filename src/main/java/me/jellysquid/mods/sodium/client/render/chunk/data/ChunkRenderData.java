@@ -27,9 +27,13 @@ public class ChunkRenderData {
     private ChunkOcclusionData occlusionData;
     private ChunkRenderBounds bounds;
 
+    private int opaqueFaces;
+
     private List<Sprite> animatedSprites;
     private List<RenderLayer> renderLayers;
 
+    private ChunkLightUpdateData lightUpdateData;
+
     public ChunkRenderBounds getBounds() {
         return this.bounds;
     }
@@ -38,6 +42,14 @@ public class ChunkRenderData {
         return this.occlusionData;
     }
 
+    /**
+     * @return The bit mask of faces (indexed by direction) on the boundary of this chunk section which are entirely
+     * covered by opaque full cubes
+     */
+    public int getOpaqueFaces() {
+        return this.opaqueFaces;
+    }
+
     public List<Sprite> getAnimatedSprites() {
         return this.animatedSprites;
     }
@@ -61,6 +73,14 @@ public class ChunkRenderData {
         return this.renderLayers;
     }
 
+    /**
+     * @return The quads which the meshes of this chunk can be created again from when only its light changes, or null
+     * if the chunk has to be rebuilt instead
+     */
+    public ChunkLightUpdateData getLightUpdateData() {
+        return this.lightUpdateData;
+    }
+
     public static class Builder {
         private final List<BlockEntity> globalBlockEntities = new ArrayList<>();
         private final List<BlockEntity> blockEntities = new ArrayList<>();
@@ -69,6 +89,8 @@ public class ChunkRenderData {
 
         private ChunkOcclusionData occlusionData;
         private ChunkRenderBounds bounds = ChunkRenderBounds.ALWAYS_FALSE;
+        private int opaqueFaces;
+        private ChunkLightUpdateData lightUpdateData;
 
         public void setBounds(ChunkRenderBounds bounds) {
             this.bounds = bounds;
@@ -78,6 +100,14 @@ public class ChunkRenderData {
             this.occlusionData = data;
         }
 
+        public void setOpaqueFaces(int opaqueFaces) {
+            this.opaqueFaces = opaqueFaces;
+        }
+
+        public void setLightUpdateData(ChunkLightUpdateData lightUpdateData) {
+            this.lightUpdateData = lightUpdateData;
+        }
+
         /**
          * Adds a sprite to this data container for tracking. If the sprite is tickable, it will be ticked every frame
          * before rendering as necessary.
@@ -108,6 +138,8 @@ public class ChunkRenderData {
             data.blockEntities = this.blockEntities;
             data.occlusionData = this.occlusionData;
             data.bounds = this.bounds;
+            data.opaqueFaces = this.opaqueFaces;
+            data.lightUpdateData = this.lightUpdateData;
             data.animatedSprites = new ObjectArrayList<>(this.animatedSprites);
             data.renderLayers = new ObjectArrayList<>(this.renderLayers);
 
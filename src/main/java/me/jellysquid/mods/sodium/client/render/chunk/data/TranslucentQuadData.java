@@ -0,0 +1,123 @@
+package me.jellysquid.mods.sodium.client.render.chunk.data;
+
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
+import me.jellysquid.mods.sodium.client.gl.util.VertexRange;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.util.NativeBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A copy of the vertices of a translucent mesh along with the centroid of each of its quads. This is kept for each
+ * section with translucent geometry, so that its quads can be sorted again on the worker threads when the camera
+ * moves, without having to rebuild the section.
+ *
+ * The data is never modified after it is created, so it can be shared freely between the main thread and the workers.
+ */
+public class TranslucentQuadData {
+    private final GlVertexFormat<ChunkMeshAttribute> vertexFormat;
+
+    private final byte[] vertices;
+    private final int quadStride;
+
+    // The centroid of each quad relative to the origin of the section, stored as consecutive (x, y, z) triples
+    private final float[] centroids;
+
+    private TranslucentQuadData(GlVertexFormat<ChunkMeshAttribute> vertexFormat, byte[] vertices, float[] centroids) {
+        this.vertexFormat = vertexFormat;
+        this.vertices = vertices;
+        this.quadStride = vertexFormat.getStride() * 4;
+        this.centroids = centroids;
+    }
+
+    /**
+     * Copies the quads from a buffer of vertices of the given type, and decodes the centroid of each quad.
+     */
+    public static TranslucentQuadData create(ByteBuffer buffer, ChunkVertexType vertexType) {
+        GlVertexFormat<ChunkMeshAttribute> vertexFormat = vertexType.getCustomVertexFormat();
+
+        int stride = vertexFormat.getStride();
+        int quadCount = buffer.remaining() / (stride * 4);
+
+        int positionOffset = vertexFormat.getAttribute(ChunkMeshAttribute.POSITION_ID)
+                .getPointer();
+
+        // The positions of every vertex type are stored as unsigned shorts, so the sum of a quad's positions only needs
+        // to be scaled once to get its centroid
+        float scale = vertexType.getPositionScale() * 0.25f;
+        float offset = vertexType.getPositionOffset();
+
+        float[] centroids = new float[quadCount * 3];
+
+        for (int quad = 0; quad < quadCount; quad++) {
+            int x = 0, y = 0, z = 0;
+
+            for (int vertex = 0; vertex < 4; vertex++) {
+                int ptr = buffer.position() + (((quad * 4) + vertex) * stride) + positionOffset;
+
+                x += buffer.getShort(ptr) & 0xFFFF;
+                y += buffer.getShort(ptr + 2) & 0xFFFF;
+                z += buffer.getShort(ptr + 4) & 0xFFFF;
+            }
+
+            centroids[(quad * 3)] = (x * scale) + offset;
+            centroids[(quad * 3) + 1] = (y * scale) + offset;
+            centroids[(quad * 3) + 2] = (z * scale) + offset;
+        }
+
+        byte[] vertices = new byte[quadCount * stride * 4];
+        buffer.get(buffer.position(), vertices);
+
+        return new TranslucentQuadData(vertexFormat, vertices, centroids);
+    }
+
+    /**
+     * Creates a mesh from the quads ordered from the furthest to the nearest to the given position, so that they are
+     * blended correctly when drawn in order. Since the order of the quads depends on the position, the mesh contains a
+     * single range of vertices which isn't split by facing.
+     *
+     * @param x The x-coordinate of the camera, relative to the origin of the section
+     * @param y The y-coordinate of the camera, relative to the origin of the section
+     * @param z The z-coordinate of the camera, relative to the origin of the section
+     */
+    public ChunkMeshData createSortedMesh(float x, float y, float z) {
+        int quadCount = this.getQuadCount();
+
+        // The squared distances are never negative, so their bits can be compared as integers. Packing the index of
+        // each quad below its distance allows sorting a primitive array instead of boxed indices.
+        long[] keys = new long[quadCount];
+
+        for (int quad = 0; quad < quadCount; quad++) {
+            float dx = this.centroids[(quad * 3)] - x;
+            float dy = this.centroids[(quad * 3) + 1] - y;
+            float dz = this.centroids[(quad * 3) + 2] - z;
+
+            float distance = (dx * dx) + (dy * dy) + (dz * dz);
+
+            keys[quad] = ((long) Float.floatToRawIntBits(distance) << 32) | quad;
+        }
+
+        Arrays.sort(keys);
+
+        NativeBuffer buffer = new NativeBuffer(this.vertices.length);
+        ByteBuffer dst = buffer.getDirectBuffer();
+
+        for (int i = quadCount - 1; i >= 0; i--) {
+            int quad = (int) keys[i];
+
+            dst.put(this.vertices, quad * this.quadStride, this.quadStride);
+        }
+
+        return new ChunkMeshData(new VertexData(this.vertexFormat, buffer),
+                Map.of(ModelQuadFacing.UNASSIGNED, new VertexRange(0, quadCount * 4)));
+    }
+
+    public int getQuadCount() {
+        return this.centroids.length / 3;
+    }
+}
@@ -1,7 +1,9 @@
 package me.jellysquid.mods.sodium.client.render.chunk.format;
 
+import me.jellysquid.mods.sodium.client.render.chunk.format.sfp.CompactModelVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.format.sfp.ModelVertexType;
 
 public class ChunkModelVertexFormats {
     public static final ModelVertexType DEFAULT = new ModelVertexType();
+    public static final CompactModelVertexType COMPACT = new CompactModelVertexType();
 }
@@ -0,0 +1,34 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.sfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterNio;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+
+import java.nio.ByteBuffer;
+
+public class CompactModelVertexBufferWriterNio extends VertexBufferWriterNio implements ModelVertexSink {
+    public CompactModelVertexBufferWriterNio(VertexBufferView backingBuffer) {
+        super(backingBuffer, ChunkModelVertexFormats.COMPACT);
+    }
+
+    @Override
+    public void writeVertex(float posX, float posY, float posZ, int color, float u, float v, int light, int chunkId) {
+        int i = this.writeOffset;
+
+        ByteBuffer buffer = this.byteBuffer;
+        buffer.putShort(i + 0, ModelVertexType.encodePosition(posX));
+        buffer.putShort(i + 2, ModelVertexType.encodePosition(posY));
+        buffer.putShort(i + 4, ModelVertexType.encodePosition(posZ));
+
+        buffer.put(i + 6, CompactModelVertexType.encodeBlockLight(light));
+        buffer.put(i + 7, CompactModelVertexType.encodeSkyLight(light));
+
+        buffer.putInt(i + 8, CompactModelVertexType.encodeColor(color, chunkId));
+
+        buffer.putShort(i + 12, ModelVertexType.encodeBlockTexture(u));
+        buffer.putShort(i + 14, ModelVertexType.encodeBlockTexture(v));
+
+        this.advance();
+    }
+}
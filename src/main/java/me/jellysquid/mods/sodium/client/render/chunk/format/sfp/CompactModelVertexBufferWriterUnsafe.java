@@ -0,0 +1,32 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.sfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterUnsafe;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import org.lwjgl.system.MemoryUtil;
+
+public class CompactModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe implements ModelVertexSink {
+    public CompactModelVertexBufferWriterUnsafe(VertexBufferView backingBuffer) {
+        super(backingBuffer, ChunkModelVertexFormats.COMPACT);
+    }
+
+    @Override
+    public void writeVertex(float posX, float posY, float posZ, int color, float u, float v, int light, int chunkId) {
+        long i = this.writePointer;
+
+        MemoryUtil.memPutShort(i + 0, ModelVertexType.encodePosition(posX));
+        MemoryUtil.memPutShort(i + 2, ModelVertexType.encodePosition(posY));
+        MemoryUtil.memPutShort(i + 4, ModelVertexType.encodePosition(posZ));
+
+        MemoryUtil.memPutByte(i + 6, CompactModelVertexType.encodeBlockLight(light));
+        MemoryUtil.memPutByte(i + 7, CompactModelVertexType.encodeSkyLight(light));
+
+        MemoryUtil.memPutInt(i + 8, CompactModelVertexType.encodeColor(color, chunkId));
+
+        MemoryUtil.memPutShort(i + 12, ModelVertexType.encodeBlockTexture(u));
+        MemoryUtil.memPutShort(i + 14, ModelVertexType.encodeBlockTexture(v));
+
+        this.advance();
+    }
+}
@@ -0,0 +1,78 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.sfp;
+
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.type.BlittableVertexType;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.minecraft.client.render.VertexConsumer;
+
+/**
+ * A compact variant of {@link ModelVertexType} which fits each vertex into 16 bytes. The light-map coordinates only
+ * take a single byte each, and are stored in the padding after the position. Since every chunk vertex is fully opaque,
+ * the alpha channel of the color holds the index of the chunk within its region instead.
+ *
+ * The positions and texture coordinates are encoded the same way as in {@link ModelVertexType}.
+ */
+public class CompactModelVertexType implements ChunkVertexType {
+    public static final GlVertexFormat<ChunkMeshAttribute> VERTEX_FORMAT = GlVertexFormat.builder(ChunkMeshAttribute.class, 16)
+            .addElement(ChunkMeshAttribute.POSITION_ID, 0, GlVertexAttributeFormat.UNSIGNED_SHORT, 3, false, false)
+            .addElement(ChunkMeshAttribute.LIGHT_TEXTURE, 6, GlVertexAttributeFormat.UNSIGNED_BYTE, 2, false, true)
+            .addElement(ChunkMeshAttribute.COLOR, 8, GlVertexAttributeFormat.UNSIGNED_BYTE, 4, false, false)
+            .addElement(ChunkMeshAttribute.BLOCK_TEXTURE, 12, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, false, false)
+            .build();
+
+    @Override
+    public ModelVertexSink createFallbackWriter(VertexConsumer consumer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ModelVertexSink createBufferWriter(VertexBufferView buffer, boolean direct) {
+        return direct ? new CompactModelVertexBufferWriterUnsafe(buffer) : new CompactModelVertexBufferWriterNio(buffer);
+    }
+
+    @Override
+    public BlittableVertexType<ModelVertexSink> asBlittable() {
+        return this;
+    }
+
+    @Override
+    public GlVertexFormat<ChunkMeshAttribute> getCustomVertexFormat() {
+        return VERTEX_FORMAT;
+    }
+
+    @Override
+    public float getTextureScale() {
+        return ModelVertexType.TEXTURE_SCALE;
+    }
+
+    @Override
+    public float getPositionScale() {
+        return ModelVertexType.MODEL_SCALE;
+    }
+
+    @Override
+    public float getPositionOffset() {
+        return -ModelVertexType.MODEL_ORIGIN;
+    }
+
+    @Override
+    public String getShaderDefine() {
+        return "USE_COMPACT_VERTEX_FORMAT";
+    }
+
+    static byte encodeBlockLight(int light) {
+        return (byte) (light & 0xFF);
+    }
+
+    static byte encodeSkyLight(int light) {
+        return (byte) ((light >>> 16) & 0xFF);
+    }
+
+    static int encodeColor(int color, int chunkId) {
+        return (color & 0x00FFFFFF) | (chunkId << 24);
+    }
+}
@@ -24,13 +24,13 @@ public class ModelVertexType implements ChunkVertexType {
     private static final int POSITION_MAX_VALUE = 65536;
     private static final int TEXTURE_MAX_VALUE = 65536;
 
-    private static final float MODEL_ORIGIN = 8.0f;
+    static final float MODEL_ORIGIN = 8.0f;
     private static final float MODEL_RANGE = 32.0f;
-    private static final float MODEL_SCALE = MODEL_RANGE / POSITION_MAX_VALUE;
+    static final float MODEL_SCALE = MODEL_RANGE / POSITION_MAX_VALUE;
 
     private static final float MODEL_SCALE_INV = POSITION_MAX_VALUE / MODEL_RANGE;
 
-    private static final float TEXTURE_SCALE = (1.0f / TEXTURE_MAX_VALUE);
+    static final float TEXTURE_SCALE = (1.0f / TEXTURE_MAX_VALUE);
 
     @Override
     public ModelVertexSink createFallbackWriter(VertexConsumer consumer) {
@@ -67,6 +67,11 @@ public class ModelVertexType implements ChunkVertexType {
         return -MODEL_ORIGIN;
     }
 
+    @Override
+    public String getShaderDefine() {
+        return "USE_VERTEX_COMPRESSION";
+    }
+
     static short encodeBlockTexture(float value) {
         return (short) (Math.min(0.99999997F, value) * TEXTURE_MAX_VALUE);
     }
@@ -0,0 +1,496 @@
+package me.jellysquid.mods.sodium.client.render.chunk.graph;
+
+import me.jellysquid.mods.sodium.client.util.collections.BitArray;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * An occlusion graph search which operates on whole bit planes at a time instead of visiting each section. Every plane
+ * contains one bit per section, using the same index layout as the section arrays of the render section manager
+ * (x in the lowest bits, then z, then y). Each wavefront of the search is propagated by shifting the planes toward each
+ * direction, so that 64 sections are handled with a single word operation.
+ *
+ * Since each wavefront can only move one section away from the previous one, the passes are limited to the layers and
+ * rows which the search has reached so far instead of covering the whole grid. Each of these segments is a row of words
+ * when a row fills at least one word, or otherwise a whole layer.
+ *
+ * The results are an approximation of the per-section search, which can hide some sections it would find because of
+ * two simplifications:
+ * - A path through the graph can never travel back toward the origin on any axis it has already moved along. Since
+ *   this makes all paths monotonic, the set of directions travelled by any path to a section only depends on the
+ *   section's offset from the origin and is not tracked per section.
+ * - Only the directions which a section was entered from during its own wavefront are considered when testing which
+ *   faces it can be exited through.
+ */
+public class ChunkGraphBitsetSearch {
+    private final int rowBits, maskXZ, maskY;
+
+    // The lowest section coordinate of the world on the y-axis. Only the x- and z-axes wrap around the grid, so this is
+    // needed to recover the real y-coordinate of each index.
+    private final int minSectionY;
+    private final int offsetZ, offsetY;
+
+    private final int wordCount;
+    private final int rowWords, layerWords, layerShift;
+
+    private final long firstColumnMask, lastColumnMask;
+
+    // Sections which are loaded
+    private final long[] present;
+
+    // For each pair of (travel direction into the section, exit direction), the sections which can be seen through
+    private final long[][] exitMasks = new long[DirectionUtil.COUNT * DirectionUtil.COUNT][];
+
+    // For each exit direction, the sections which can be exited toward that direction without travelling back
+    private final long[][] allowedExits = new long[DirectionUtil.COUNT][];
+    private int allowedOriginX = Integer.MIN_VALUE, allowedOriginY, allowedOriginZ;
+
+    // For each travel direction, the sections in the current wavefront which were entered by travelling in it
+    private final long[][] entered = new long[DirectionUtil.COUNT][];
+    private final long[][] arrived = new long[DirectionUtil.COUNT][];
+
+    private final long[] frontier;
+    private final long[] exits;
+
+    // The first word of each segment which the current wavefront can reach, in index order
+    private final int[] segments;
+    private final int segmentWords;
+    private int segmentCount;
+
+    // The span of layers and rows which the search has reached, relative to the bottom of the world and the row
+    // opposite to the origin respectively, so that neither of them wraps around the grid
+    private int minLayer, maxLayer;
+    private int minRow, maxRow, originRow;
+
+    public ChunkGraphBitsetSearch(int sizeXZ, int sizeY, int minSectionY) {
+        if (sizeXZ < 8 || Integer.bitCount(sizeXZ) != 1 || Integer.bitCount(sizeY) != 1) {
+            throw new IllegalArgumentException("Grid dimensions must be powers of two [sizeXZ=%s, sizeY=%s]".formatted(sizeXZ, sizeY));
+        }
+
+        this.rowBits = sizeXZ;
+        this.maskXZ = sizeXZ - 1;
+        this.maskY = sizeY - 1;
+        this.minSectionY = minSectionY;
+
+        this.offsetZ = Integer.numberOfTrailingZeros(sizeXZ);
+        this.offsetY = this.offsetZ * 2;
+
+        int arraySize = sizeXZ * sizeY * sizeXZ;
+
+        this.present = BitArray.create(arraySize);
+        this.wordCount = this.present.length;
+
+        this.rowWords = Math.max(1, sizeXZ >> 6);
+        this.layerWords = (sizeXZ * sizeXZ) >> 6;
+        this.layerShift = Integer.numberOfTrailingZeros(this.layerWords);
+
+        long firstColumnMask = 0L;
+
+        if (sizeXZ < 64) {
+            for (int bit = 0; bit < 64; bit += sizeXZ) {
+                firstColumnMask |= 1L << bit;
+            }
+        }
+
+        this.firstColumnMask = firstColumnMask;
+        this.lastColumnMask = firstColumnMask << (sizeXZ - 1);
+
+        for (int from = 0; from < DirectionUtil.COUNT; from++) {
+            for (int to = 0; to < DirectionUtil.COUNT; to++) {
+                // Travelling back through the face a section was entered from is never allowed
+                if (to != DirectionUtil.getOpposite(from)) {
+                    this.exitMasks[(from * DirectionUtil.COUNT) + to] = new long[this.wordCount];
+                }
+            }
+        }
+
+        for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+            this.allowedExits[dir] = new long[this.wordCount];
+            this.entered[dir] = new long[this.wordCount];
+            this.arrived[dir] = new long[this.wordCount];
+        }
+
+        this.frontier = new long[this.wordCount];
+        this.exits = new long[this.wordCount];
+
+        this.segmentWords = sizeXZ < 64 ? this.layerWords : this.rowWords;
+        this.segments = new int[this.wordCount / this.segmentWords];
+    }
+
+    /**
+     * Marks the section as loaded and updates which of its faces can be seen through each other.
+     * @param visibilityData The packed visibility data of the section, see {@code RenderSectionManager#isVisibleThrough}
+     */
+    public void setSection(int id, long visibilityData) {
+        BitArray.set(this.present, id);
+
+        for (int from = 0; from < DirectionUtil.COUNT; from++) {
+            for (int to = 0; to < DirectionUtil.COUNT; to++) {
+                var mask = this.exitMasks[(from * DirectionUtil.COUNT) + to];
+
+                if (mask == null) {
+                    continue;
+                }
+
+                // The section was entered by travelling toward "from", so it was entered through the opposite face
+                int bit = (DirectionUtil.getOpposite(from) * DirectionUtil.COUNT) + to;
+                BitArray.put(mask, id, (visibilityData & (1L << bit)) != 0L);
+            }
+        }
+    }
+
+    public void removeSection(int id) {
+        BitArray.unset(this.present, id);
+
+        for (var mask : this.exitMasks) {
+            if (mask != null) {
+                BitArray.unset(mask, id);
+            }
+        }
+    }
+
+    /**
+     * Searches the graph starting from the sections which are already in the queue, appending every section which is
+     * reached to the queue. Each wavefront is appended in index order after the previous one, so the queue remains
+     * ordered by graph distance from the origin.
+     *
+     * @param visible The visibility bits of each section, which must already contain the starting sections
+     * @param culledByFrustum Tests whether a newly reached section is outside the frustum, or null to skip the test
+     */
+    public void search(ChunkGraphIterationQueue queue, long[] visible, int originX, int originY, int originZ,
+                       boolean useOcclusionCulling, IntPredicate culledByFrustum) {
+        if (useOcclusionCulling) {
+            this.updateAllowedExits(originX & this.maskXZ, originY, originZ & this.maskXZ);
+        }
+
+        // The passes only write to the segments which can be reached, so everything else has to be cleared up front
+        Arrays.fill(this.frontier, 0L);
+        Arrays.fill(this.exits, 0L);
+
+        for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+            Arrays.fill(this.entered[dir], 0L);
+        }
+
+        this.originRow = (originZ - (this.rowBits >> 1)) & this.maskXZ;
+
+        this.minLayer = this.minRow = Integer.MAX_VALUE;
+        this.maxLayer = this.maxRow = Integer.MIN_VALUE;
+
+        for (int i = 0; i < queue.size(); i++) {
+            int id = queue.getSection(i);
+            BitArray.set(this.frontier, id);
+
+            int layer = this.getSectionY(id) - this.minSectionY;
+            int row = (((id >> this.offsetZ) & this.maskXZ) - this.originRow) & this.maskXZ;
+
+            this.minLayer = Math.min(this.minLayer, layer);
+            this.maxLayer = Math.max(this.maxLayer, layer);
+            this.minRow = Math.min(this.minRow, row);
+            this.maxRow = Math.max(this.maxRow, row);
+        }
+
+        if (queue.size() == 0) {
+            return;
+        }
+
+        // The starting sections were not entered from any direction, so they can be exited in all directions
+        boolean first = true;
+
+        while (true) {
+            this.expandSegments();
+
+            for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+                this.collectExits(dir, useOcclusionCulling && !first);
+                this.shift(this.exits, this.arrived[dir], dir);
+            }
+
+            first = false;
+
+            boolean any = false;
+
+            for (int i = 0; i < this.segmentCount; i++) {
+                int start = this.segments[i];
+
+                for (int word = start; word < start + this.segmentWords; word++) {
+                    long reachable = this.present[word] & ~visible[word];
+                    long next = 0L;
+
+                    for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+                        next |= (this.arrived[dir][word] &= reachable);
+                    }
+
+                    this.frontier[word] = next;
+                    any |= next != 0L;
+                }
+            }
+
+            if (!any) {
+                break;
+            }
+
+            this.emitFrontier(queue, visible, culledByFrustum);
+        }
+    }
+
+    /**
+     * Grows the span of the search by one section in each direction, since that is as far as the next wavefront can
+     * reach, and collects the segments which are covered by it. Once the rows would wrap around the grid, all of them
+     * are covered instead.
+     */
+    private void expandSegments() {
+        this.minLayer = Math.max(this.minLayer - 1, 0);
+        this.maxLayer = Math.min(this.maxLayer + 1, this.maskY);
+
+        if (this.minRow == 0 || this.maxRow == this.maskXZ) {
+            this.minRow = 0;
+            this.maxRow = this.maskXZ;
+        } else {
+            this.minRow--;
+            this.maxRow++;
+        }
+
+        int count = 0;
+
+        for (int layer = 0; layer <= this.maskY; layer++) {
+            int relY = (layer - this.minSectionY) & this.maskY;
+
+            if (relY < this.minLayer || relY > this.maxLayer) {
+                continue;
+            }
+
+            int layerStart = layer << this.layerShift;
+
+            if (this.rowBits < 64) {
+                this.segments[count++] = layerStart;
+                continue;
+            }
+
+            for (int row = 0; row <= this.maskXZ; row++) {
+                int relZ = (row - this.originRow) & this.maskXZ;
+
+                if (relZ >= this.minRow && relZ <= this.maxRow) {
+                    this.segments[count++] = layerStart + (row * this.rowWords);
+                }
+            }
+        }
+
+        this.segmentCount = count;
+    }
+
+    /**
+     * Collects the sections in the current wavefront which can be exited toward {@code dir} into {@link #exits}.
+     */
+    private void collectExits(int dir, boolean useGraph) {
+        var allowed = this.allowedExits[dir];
+
+        for (int i = 0; i < this.segmentCount; i++) {
+            int start = this.segments[i];
+
+            if (!useGraph) {
+                System.arraycopy(this.frontier, start, this.exits, start, this.segmentWords);
+                continue;
+            }
+
+            for (int word = start; word < start + this.segmentWords; word++) {
+                long frontier = this.frontier[word];
+
+                if (frontier == 0L) {
+                    this.exits[word] = 0L;
+                    continue;
+                }
+
+                long exits = 0L;
+
+                for (int from = 0; from < DirectionUtil.COUNT; from++) {
+                    var mask = this.exitMasks[(from * DirectionUtil.COUNT) + dir];
+
+                    if (mask != null) {
+                        exits |= this.entered[from][word] & mask[word];
+                    }
+                }
+
+                this.exits[word] = exits & allowed[word] & frontier;
+            }
+        }
+    }
+
+    /**
+     * Removes the sections in the new wavefront which are outside the frustum, then marks the remaining sections as
+     * visible and appends them to the queue.
+     */
+    private void emitFrontier(ChunkGraphIterationQueue queue, long[] visible, IntPredicate culledByFrustum) {
+        for (int i = 0; i < this.segmentCount; i++) {
+            int start = this.segments[i];
+
+            for (int word = start; word < start + this.segmentWords; word++) {
+                long bits = this.frontier[word];
+
+                while (bits != 0L) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    int id = (word << 6) + bit;
+
+                    if (culledByFrustum != null && culledByFrustum.test(id)) {
+                        this.frontier[word] &= ~(1L << bit);
+                        continue;
+                    }
+
+                    queue.add(id);
+                }
+
+                long frontier = this.frontier[word];
+                visible[word] |= frontier;
+
+                for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+                    this.entered[dir][word] = this.arrived[dir][word] & frontier;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves every bit in {@code src} one section toward {@code dir}, wrapping around the edges of the grid in the
+     * same way as the index function. The y-axis doesn't wrap, so sections which would be moved past the top or
+     * bottom of the world are dropped. Only the current segments of {@code dst} are written.
+     */
+    private void shift(long[] src, long[] dst, int dir) {
+        boolean forward = DirectionUtil.getOffsetX(dir) + DirectionUtil.getOffsetY(dir) + DirectionUtil.getOffsetZ(dir) > 0;
+
+        for (int i = 0; i < this.segmentCount; i++) {
+            int start = this.segments[i];
+
+            if (DirectionUtil.getOffsetX(dir) != 0) {
+                if (this.rowBits < 64) {
+                    this.shiftColumns(src, dst, start, forward);
+                } else {
+                    rotateBits(src, dst, start, this.rowWords, 1, forward);
+                }
+            } else if (DirectionUtil.getOffsetZ(dir) != 0) {
+                if (this.rowBits < 64) {
+                    rotateBits(src, dst, start, this.layerWords, this.rowBits, forward);
+                } else {
+                    this.shiftRow(src, dst, start, forward);
+                }
+            } else {
+                this.shiftLayer(src, dst, start, forward);
+            }
+        }
+    }
+
+    // Shifts a layer along the x-axis when each word contains multiple rows
+    private void shiftColumns(long[] src, long[] dst, int start, boolean forward) {
+        int wrap = this.rowBits - 1;
+
+        for (int word = start; word < start + this.layerWords; word++) {
+            long bits = src[word];
+
+            if (forward) {
+                dst[word] = ((bits << 1) & ~this.firstColumnMask) | ((bits >>> wrap) & this.firstColumnMask);
+            } else {
+                dst[word] = ((bits >>> 1) & ~this.lastColumnMask) | ((bits << wrap) & this.lastColumnMask);
+            }
+        }
+    }
+
+    // Shifts a row along the z-axis when each row contains whole words
+    private void shiftRow(long[] src, long[] dst, int start, boolean forward) {
+        int layerStart = start & ~(this.layerWords - 1);
+        int row = (start - layerStart) / this.rowWords;
+
+        int srcRow = (forward ? row - 1 : row + 1) & this.maskXZ;
+        System.arraycopy(src, layerStart + (srcRow * this.rowWords), dst, start, this.rowWords);
+    }
+
+    // Shifts a segment along the y-axis, dropping the sections which would be moved across the bottom or top of the world
+    private void shiftLayer(long[] src, long[] dst, int start, boolean forward) {
+        int layer = start >> this.layerShift;
+        int relY = (layer - this.minSectionY) & this.maskY;
+
+        if (relY == (forward ? 0 : this.maskY)) {
+            Arrays.fill(dst, start, start + this.segmentWords, 0L);
+            return;
+        }
+
+        int srcLayer = (forward ? layer - 1 : layer + 1) & this.maskY;
+        System.arraycopy(src, (srcLayer << this.layerShift) + (start & (this.layerWords - 1)), dst, start, this.segmentWords);
+    }
+
+    // Rotates a segment of words by fewer than 64 bits
+    private static void rotateBits(long[] src, long[] dst, int start, int words, int bits, boolean forward) {
+        int carry = 64 - bits;
+        int last = start + words - 1;
+
+        if (forward) {
+            dst[start] = (src[start] << bits) | (src[last] >>> carry);
+
+            for (int word = start + 1; word <= last; word++) {
+                dst[word] = (src[word] << bits) | (src[word - 1] >>> carry);
+            }
+        } else {
+            for (int word = start; word < last; word++) {
+                dst[word] = (src[word] >>> bits) | (src[word + 1] << carry);
+            }
+
+            dst[last] = (src[last] >>> bits) | (src[start] << carry);
+        }
+    }
+
+    /**
+     * Re-computes which sections may be exited toward each direction when paths start from the given origin. A path
+     * which has moved away from the origin along an axis can't travel back toward it, so a section on the positive side
+     * of the origin can't be exited toward the negative direction of that axis (and vice versa.)
+     */
+    private void updateAllowedExits(int originX, int originY, int originZ) {
+        if (originX == this.allowedOriginX && originY == this.allowedOriginY && originZ == this.allowedOriginZ) {
+            return;
+        }
+
+        for (int word = 0; word < this.wordCount; word++) {
+            long positiveX = 0L, negativeX = 0L;
+            long positiveY = 0L, negativeY = 0L;
+            long positiveZ = 0L, negativeZ = 0L;
+
+            for (int bit = 0; bit < 64; bit++) {
+                int id = (word << 6) + bit;
+
+                int dx = this.wrapOffset((id & this.maskXZ) - originX, this.maskXZ);
+                int dz = this.wrapOffset(((id >> this.offsetZ) & this.maskXZ) - originZ, this.maskXZ);
+                int dy = this.getSectionY(id) - originY;
+
+                long flag = 1L << bit;
+
+                if (dx > 0) positiveX |= flag;
+                if (dx < 0) negativeX |= flag;
+                if (dy > 0) positiveY |= flag;
+                if (dy < 0) negativeY |= flag;
+                if (dz > 0) positiveZ |= flag;
+                if (dz < 0) negativeZ |= flag;
+            }
+
+            this.allowedExits[DirectionUtil.WEST][word] = ~positiveX;
+            this.allowedExits[DirectionUtil.EAST][word] = ~negativeX;
+            this.allowedExits[DirectionUtil.DOWN][word] = ~positiveY;
+            this.allowedExits[DirectionUtil.UP][word] = ~negativeY;
+            this.allowedExits[DirectionUtil.NORTH][word] = ~positiveZ;
+            this.allowedExits[DirectionUtil.SOUTH][word] = ~negativeZ;
+        }
+
+        this.allowedOriginX = originX;
+        this.allowedOriginY = originY;
+        this.allowedOriginZ = originZ;
+    }
+
+    // Recovers the real y-coordinate of an index, since the world's sections never span more than the height of the grid
+    private int getSectionY(int id) {
+        return this.minSectionY + ((((id >> this.offsetY) & this.maskY) - this.minSectionY) & this.maskY);
+    }
+
+    // Converts an offset on a wrapping axis into the range [-size/2, size/2)
+    private int wrapOffset(int offset, int mask) {
+        int size = mask + 1;
+        return ((offset + (size >> 1)) & mask) - (size >> 1);
+    }
+}
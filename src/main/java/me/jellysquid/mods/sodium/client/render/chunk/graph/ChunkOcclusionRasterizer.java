@@ -0,0 +1,258 @@
+package me.jellysquid.mods.sodium.client.render.chunk.graph;
+
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * A conservative software occlusion culler for the chunk graph search. The faces of chunk sections which are entirely
+ * covered by opaque full cubes are rasterized into a small depth buffer, and the bounding boxes of other sections are
+ * tested against it before they are expanded by the search.
+ *
+ * Occluders only write to the pixels which they fully cover, and they write the farthest depth of any of their
+ * vertices. Occludees are tested against every pixel which they touch using the nearest depth of any of their
+ * vertices. This means a section can only be culled if it is completely hidden, regardless of the resolution of the
+ * depth buffer. The depth stored is the clip-space W coordinate, which is the linear distance along the view direction.
+ */
+public class ChunkOcclusionRasterizer {
+    private static final int WIDTH = 256;
+    private static final int HEIGHT = 128;
+
+    // Geometry closer than this to the camera plane is never rasterized, since it would need to be clipped
+    private static final float NEAR_PLANE = 0.05f;
+
+    private final float[] depth = new float[WIDTH * HEIGHT];
+
+    private final Matrix4f viewProjection = new Matrix4f();
+    private float cameraX, cameraY, cameraZ;
+
+    // Scratch space for projected vertices (screen x, screen y, w)
+    private final float[] projected = new float[8 * 3];
+
+    /**
+     * Clears the depth buffer and prepares for a new search.
+     * @param viewProjection The view-projection matrix of the camera, without translation
+     */
+    public void begin(Matrix4f viewProjection, float cameraX, float cameraY, float cameraZ) {
+        this.viewProjection.set(viewProjection);
+
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+
+        Arrays.fill(this.depth, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return True if the box of the section at the given chunk coordinates is hidden behind previously rasterized
+     * occluders, otherwise false
+     */
+    public boolean isOccluded(int chunkX, int chunkY, int chunkZ) {
+        float x = (chunkX << 4) - this.cameraX;
+        float y = (chunkY << 4) - this.cameraY;
+        float z = (chunkZ << 4) - this.cameraZ;
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minW = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+
+        for (int corner = 0; corner < 8; corner++) {
+            if (!this.project(x + ((corner & 1) << 4), y + ((corner & 2) << 3), z + ((corner & 4) << 2), 0)) {
+                return false;
+            }
+
+            float sx = this.projected[0];
+            float sy = this.projected[1];
+            float w = this.projected[2];
+
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+            minW = Math.min(minW, w);
+        }
+
+        int x0 = Math.max(0, (int) Math.floor(minX));
+        int y0 = Math.max(0, (int) Math.floor(minY));
+        int x1 = Math.min(WIDTH - 1, (int) Math.ceil(maxX));
+        int y1 = Math.min(HEIGHT - 1, (int) Math.ceil(maxY));
+
+        if (x0 > x1 || y0 > y1) {
+            return false;
+        }
+
+        for (int py = y0; py <= y1; py++) {
+            int row = py * WIDTH;
+
+            for (int px = x0; px <= x1; px++) {
+                if (this.depth[row + px] >= minW) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Rasterizes the faces of the section at the given chunk coordinates which are facing the camera and are entirely
+     * covered by opaque blocks.
+     * @param opaqueFaces The bit mask of faces (by direction) which are covered by opaque blocks
+     */
+    public void addOccluder(int chunkX, int chunkY, int chunkZ, int opaqueFaces) {
+        if (opaqueFaces == 0) {
+            return;
+        }
+
+        float x = (chunkX << 4) - this.cameraX;
+        float y = (chunkY << 4) - this.cameraY;
+        float z = (chunkZ << 4) - this.cameraZ;
+
+        for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+            if ((opaqueFaces & (1 << dir)) == 0) {
+                continue;
+            }
+
+            // The plane of the face on its axis, relative to the camera
+            float plane = switch (dir) {
+                case 0 -> y;
+                case 1 -> y + 16.0f;
+                case 2 -> z;
+                case 3 -> z + 16.0f;
+                case 4 -> x;
+                default -> x + 16.0f;
+            };
+
+            boolean positive = (dir & 1) != 0;
+
+            // Only faces which point toward the camera are rasterized, since they are always closer than the others
+            if (positive ? plane > 0.0f : plane < 0.0f) {
+                continue;
+            }
+
+            this.rasterizeFace(dir, x, y, z);
+        }
+    }
+
+    private void rasterizeFace(int dir, float x, float y, float z) {
+        float maxW = 0.0f;
+
+        for (int corner = 0; corner < 4; corner++) {
+            // Walk the corners of the face in order around its edges
+            float u = ((corner + 1) & 2) << 3;
+            float v = (corner & 2) << 3;
+
+            boolean visible = switch (DirectionUtil.getAxis(dir)) {
+                case X -> this.project(x + (dir == DirectionUtil.EAST ? 16.0f : 0.0f), y + u, z + v, corner);
+                case Y -> this.project(x + u, y + (dir == DirectionUtil.UP ? 16.0f : 0.0f), z + v, corner);
+                case Z -> this.project(x + u, y + v, z + (dir == DirectionUtil.SOUTH ? 16.0f : 0.0f), corner);
+            };
+
+            if (!visible) {
+                return;
+            }
+
+            maxW = Math.max(maxW, this.projected[(corner * 3) + 2]);
+        }
+
+        this.rasterizeQuad(maxW);
+    }
+
+    /**
+     * Writes the given depth to every pixel which is fully covered by the projected quad in the scratch buffer.
+     */
+    private void rasterizeQuad(float w) {
+        var p = this.projected;
+
+        float area = 0.0f;
+
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) & 3;
+            area += (p[i * 3] * p[(j * 3) + 1]) - (p[j * 3] * p[(i * 3) + 1]);
+        }
+
+        if (Math.abs(area) < 1.0e-3f) {
+            return;
+        }
+
+        float sign = Math.signum(area);
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < 4; i++) {
+            minX = Math.min(minX, p[i * 3]);
+            maxX = Math.max(maxX, p[i * 3]);
+            minY = Math.min(minY, p[(i * 3) + 1]);
+            maxY = Math.max(maxY, p[(i * 3) + 1]);
+        }
+
+        int x0 = Math.max(0, (int) Math.ceil(minX));
+        int y0 = Math.max(0, (int) Math.ceil(minY));
+        int x1 = Math.min(WIDTH - 1, (int) Math.floor(maxX) - 1);
+        int y1 = Math.min(HEIGHT - 1, (int) Math.floor(maxY) - 1);
+
+        for (int py = y0; py <= y1; py++) {
+            int row = py * WIDTH;
+
+            for (int px = x0; px <= x1; px++) {
+                if (w < this.depth[row + px] && this.coversPixel(px, py, sign)) {
+                    this.depth[row + px] = w;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the pixel with the given lower corner lies entirely within the projected quad
+     */
+    private boolean coversPixel(int px, int py, float sign) {
+        var p = this.projected;
+
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) & 3;
+
+            float ax = p[i * 3], ay = p[(i * 3) + 1];
+            float bx = p[j * 3], by = p[(j * 3) + 1];
+
+            float a = (ay - by) * sign;
+            float b = (bx - ax) * sign;
+            float c = ((ax * by) - (bx * ay)) * sign;
+
+            // Evaluate the edge function at the corner of the pixel which is farthest outside the edge
+            float cx = px + (a < 0.0f ? 1.0f : 0.0f);
+            float cy = py + (b < 0.0f ? 1.0f : 0.0f);
+
+            if ((a * cx) + (b * cy) + c < 0.0f) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Projects a point relative to the camera into screen space, storing the result in the scratch buffer.
+     * @return False if the point is too close to or behind the camera plane
+     */
+    private boolean project(float x, float y, float z, int index) {
+        var m = this.viewProjection;
+
+        float w = (m.m03() * x) + (m.m13() * y) + (m.m23() * z) + m.m33();
+
+        if (w < NEAR_PLANE) {
+            return false;
+        }
+
+        float cx = (m.m00() * x) + (m.m10() * y) + (m.m20() * z) + m.m30();
+        float cy = (m.m01() * x) + (m.m11() * y) + (m.m21() * z) + m.m31();
+
+        int offset = index * 3;
+
+        this.projected[offset] = ((cx / w) * 0.5f + 0.5f) * WIDTH;
+        this.projected[offset + 1] = ((cy / w) * 0.5f + 0.5f) * HEIGHT;
+        this.projected[offset + 2] = w;
+
+        return true;
+    }
+}
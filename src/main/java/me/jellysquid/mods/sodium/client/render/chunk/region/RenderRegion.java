@@ -43,17 +43,14 @@ public class RenderRegion {
     private final Map<BlockRenderPass, RegionData> data = new EnumMap<>(BlockRenderPass.class);
 
     private final GlBufferArena vertexBuffers;
-    private final GlBufferArena indexBuffers;
 
     private GlTessellation tessellation;
 
     public RenderRegion(int x, int y, int z,
                         CommandList commandList, StagingBuffer stagingBuffer) {
         int expectedVertexCount = REGION_SIZE * 756;
-        int expectedIndexCount = (expectedVertexCount / 4) * 6;
 
         this.vertexBuffers = createArena(commandList, expectedVertexCount * ChunkModelVertexFormats.DEFAULT.getBufferVertexFormat().getStride(), stagingBuffer);
-        this.indexBuffers = createArena(commandList, expectedIndexCount * 4, stagingBuffer);
 
         this.x = x;
         this.y = y;
@@ -84,7 +81,6 @@ public class RenderRegion {
         this.deleteTessellations(commandList);
 
         this.vertexBuffers.delete(commandList);
-        this.indexBuffers.delete(commandList);
     }
 
     public void deleteTessellations(CommandList commandList) {
@@ -95,15 +91,15 @@ public class RenderRegion {
     }
 
     public boolean isEmpty() {
-        return this.vertexBuffers.isEmpty() && this.indexBuffers.isEmpty();
+        return this.vertexBuffers.isEmpty();
     }
 
     public long getDeviceUsedMemory() {
-        return this.vertexBuffers.getDeviceUsedMemory() + this.indexBuffers.getDeviceUsedMemory();
+        return this.vertexBuffers.getDeviceUsedMemory();
     }
 
     public long getDeviceAllocatedMemory() {
-        return this.vertexBuffers.getDeviceAllocatedMemory() + this.indexBuffers.getDeviceAllocatedMemory();
+        return this.vertexBuffers.getDeviceAllocatedMemory();
     }
 
     private static GlBufferArena createArena(CommandList commandList, int initialCapacity, StagingBuffer stagingBuffer) {
@@ -133,10 +129,6 @@ public class RenderRegion {
         return this.vertexBuffers;
     }
 
-    public GlBufferArena getIndexBuffer() {
-        return this.indexBuffers;
-    }
-
     public void deleteChunk(int localId) {
         for (BlockRenderPass pass : BlockRenderPass.VALUES) {
             this.getData(pass).deleteGraphicsState(localId);
@@ -155,6 +147,10 @@ public class RenderRegion {
         }
 
         public void setGraphicsState(int localId, ChunkGraphicsState state) {
+            // A batch of uploads can contain more than one mesh for the same section and pass, such as a sorted mesh
+            // followed by a rebuilt one, in which case the earlier mesh has to be released
+            this.deleteGraphicsState(localId);
+
             this.state[localId] = state;
         }
 
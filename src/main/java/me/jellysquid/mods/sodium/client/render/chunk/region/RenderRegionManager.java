@@ -8,7 +8,7 @@ import me.jellysquid.mods.sodium.client.gl.arena.PendingUpload;
 import me.jellysquid.mods.sodium.client.gl.arena.staging.FallbackStagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.arena.staging.MappedStagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.arena.staging.StagingBuffer;
-import me.jellysquid.mods.sodium.client.gl.buffer.IndexedVertexData;
+import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
 import me.jellysquid.mods.sodium.client.gl.device.CommandList;
 import me.jellysquid.mods.sodium.client.gl.device.RenderDevice;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
@@ -60,7 +60,6 @@ public class RenderRegionManager {
         var region = this.getOrCreateRegion(regionId);
 
         boolean buffersResized = region.getVertexBuffer().upload(commandList, uploads.stream().map(i -> i.vertexUpload));
-        buffersResized |= region.getIndexBuffer().upload(commandList, uploads.stream().map(i -> i.indicesUpload));
 
         // If any of the buffers changed, the tessellation will need to be updated
         // Once invalidated the tessellation will be re-created on the next attempted use
@@ -71,7 +70,7 @@ public class RenderRegionManager {
         // Collect the upload results
         for (PendingSectionUpload upload : uploads) {
             region.getData(upload.pass)
-                    .setGraphicsState(upload.section.getLocalId(), new ChunkGraphicsState(upload.vertexUpload.getResult(), upload.indicesUpload.getResult(), upload.meshData));
+                    .setGraphicsState(upload.section.getLocalId(), new ChunkGraphicsState(upload.vertexUpload.getResult(), upload.meshData));
         }
     }
 
@@ -82,22 +81,28 @@ public class RenderRegionManager {
             var region = this.regions.get(result.section.getRegionId());
 
             if (region != null) {
-                region.deleteChunk(result.section.getLocalId());
+                if (result.isPartial()) {
+                    for (BlockRenderPass pass : result.meshes.keySet()) {
+                        region.getData(pass)
+                                .deleteGraphicsState(result.section.getLocalId());
+                    }
+                } else {
+                    region.deleteChunk(result.section.getLocalId());
+                }
             }
 
             for (BlockRenderPass pass : BlockRenderPass.VALUES) {
                 ChunkMeshData meshData = result.getMesh(pass);
 
                 if (meshData != null) {
-                    IndexedVertexData vertexData = meshData.getVertexData();
+                    VertexData vertexData = meshData.getVertexData();
 
                     List<PendingSectionUpload> uploadQueue = map.computeIfAbsent(result.section.getRegionId(), key -> new ArrayList<>());
                     uploadQueue.add(new RenderRegionManager.PendingSectionUpload(
                             result.section,
                             meshData,
                             pass,
-                            new PendingUpload(vertexData.vertexBuffer()),
-                            new PendingUpload(vertexData.indexBuffer())
+                            new PendingUpload(vertexData.vertexBuffer())
                     ));
                 }
             }
@@ -151,7 +156,6 @@ public class RenderRegionManager {
     public record PendingSectionUpload(RenderSection section,
                                        ChunkMeshData meshData,
                                        BlockRenderPass pass,
-                                       PendingUpload vertexUpload,
-                                       PendingUpload indicesUpload) {
+                                       PendingUpload vertexUpload) {
     }
 }
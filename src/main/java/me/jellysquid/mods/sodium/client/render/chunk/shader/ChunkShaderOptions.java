@@ -4,7 +4,7 @@ import me.jellysquid.mods.sodium.client.gl.shader.ShaderConstants;
 import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 
-public record ChunkShaderOptions(ChunkFogMode fog, BlockRenderPass pass, ChunkVertexType vertexType) {
+public record ChunkShaderOptions(ChunkFogMode fog, BlockRenderPass pass, ChunkVertexType vertexType, boolean textureTiling) {
     public ShaderConstants constants() {
         ShaderConstants.Builder constants = ShaderConstants.builder();
         constants.addAll(this.fog.getDefines());
@@ -13,11 +13,15 @@ public record ChunkShaderOptions(ChunkFogMode fog, BlockRenderPass pass, ChunkVe
             constants.add("ALPHA_CUTOFF", String.valueOf(this.pass.getAlphaCutoff()));
         }
 
-        constants.add("USE_VERTEX_COMPRESSION"); // TODO: allow compact vertex format to be disabled
+        constants.add(this.vertexType.getShaderDefine());
         constants.add("VERT_POS_SCALE", String.valueOf(this.vertexType.getPositionScale()));
         constants.add("VERT_POS_OFFSET", String.valueOf(this.vertexType.getPositionOffset()));
         constants.add("VERT_TEX_SCALE", String.valueOf(this.vertexType.getTextureScale()));
 
+        if (this.textureTiling) {
+            constants.add("USE_TEXTURE_TILING");
+        }
+
         return constants.build();
     }
 }
@@ -5,6 +5,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
 
 import java.util.Collections;
 
@@ -25,6 +26,7 @@ public class ChunkRenderEmptyBuildTask extends ChunkRenderBuildTask {
 
     @Override
     public ChunkBuildResult performBuild(ChunkBuildContext context, CancellationSource cancellationSource) {
-        return new ChunkBuildResult(this.render, ChunkRenderData.EMPTY, Collections.emptyMap(), this.frame);
+        return new ChunkBuildResult(this.render, ChunkRenderData.EMPTY, Collections.emptyMap(), Collections.emptyMap(),
+                WorldSlice.NO_FINGERPRINT, this.frame);
     }
 }
@@ -4,21 +4,26 @@ import me.jellysquid.mods.sodium.client.gl.compile.ChunkBuildContext;
 import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkMeshCache;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderCacheLocal;
 import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.BlockStateTable;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
 import net.minecraft.block.BlockRenderType;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.RenderLayer;
-import net.minecraft.client.render.RenderLayers;
 import net.minecraft.client.render.block.entity.BlockEntityRenderer;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
 import net.minecraft.client.render.model.BakedModel;
 import net.minecraft.fluid.FluidState;
@@ -39,10 +44,26 @@ public class ChunkRenderRebuildTask extends ChunkRenderBuildTask {
     private final ChunkRenderContext renderContext;
     private final int frame;
 
-    public ChunkRenderRebuildTask(RenderSection render, ChunkRenderContext renderContext, int frame) {
+    // The fingerprint of the inputs which the current meshes of the section were built from
+    private final long previousFingerprint;
+
+    // The persistent cache of meshes, or null if it is disabled
+    private final ChunkMeshCache meshCache;
+
+    // The position of the camera relative to the origin of the section, which translucent quads are sorted against
+    private final float cameraX, cameraY, cameraZ;
+
+    public ChunkRenderRebuildTask(RenderSection render, ChunkRenderContext renderContext, int frame, long previousFingerprint,
+                                  ChunkMeshCache meshCache, float cameraX, float cameraY, float cameraZ) {
         this.render = render;
         this.renderContext = renderContext;
         this.frame = frame;
+        this.previousFingerprint = previousFingerprint;
+        this.meshCache = meshCache;
+
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
     }
 
     @Override
@@ -50,6 +71,27 @@ public class ChunkRenderRebuildTask extends ChunkRenderBuildTask {
         ChunkRenderCacheLocal cache = buildContext.cache;
         cache.init(this.renderContext);
 
+        WorldSlice slice = cache.getWorldSlice();
+        BlockStateTable stateTable = slice.getStateTable();
+
+        long contentHash = slice.computeContentHash();
+        long fingerprint = slice.computeFingerprint(contentHash);
+
+        // The section was rebuilt for a change which didn't affect its meshes, such as a block being replaced by the
+        // same block state, so the meshes it already has can be kept
+        if (fingerprint != WorldSlice.NO_FINGERPRINT && fingerprint == this.previousFingerprint) {
+            return ChunkBuildResult.unchanged(this.render, fingerprint, this.frame);
+        }
+
+        if (this.meshCache != null) {
+            ChunkBuildResult cached = this.meshCache.load(this.render, slice, contentHash, fingerprint, this.frame,
+                    this.cameraX, this.cameraY, this.cameraZ);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         ChunkRenderData.Builder renderData = new ChunkRenderData.Builder();
         ChunkOcclusionDataBuilder occluder = new ChunkOcclusionDataBuilder();
         ChunkRenderBounds.Builder bounds = new ChunkRenderBounds.Builder();
@@ -57,8 +99,6 @@ public class ChunkRenderRebuildTask extends ChunkRenderBuildTask {
         ChunkBuildBuffers buffers = buildContext.buffers;
         buffers.init(renderData, this.render.getLocalId());
 
-        WorldSlice slice = cache.getWorldSlice();
-
         int minX = this.render.getOriginX();
         int minY = this.render.getOriginY();
         int minZ = this.render.getOriginZ();
@@ -70,26 +110,55 @@ public class ChunkRenderRebuildTask extends ChunkRenderBuildTask {
         BlockPos.Mutable blockPos = new BlockPos.Mutable();
         BlockPos.Mutable offset = new BlockPos.Mutable();
 
+        // The number of opaque full cubes on each face of the section's boundary
+        int[] opaqueFaceBlocks = new int[DirectionUtil.COUNT];
+
+        BlockState uniformState = slice.getUniformBlockState();
+
+        // Sections which are completely filled with a single opaque cube or fluid can't have any visible faces inside
+        // them, so only the blocks on the boundary of the section need to be visited
+        boolean skipInterior = uniformState != null && hasHiddenInterior(uniformState, slice, blockPos.set(minX, minY, minZ));
+        boolean uniformOpaque = skipInterior && uniformState.isOpaqueFullCube(slice, blockPos);
+
+        // The faces of the section which are entirely covered by opaque neighbours. The blocks of an opaque section
+        // which only lie on these faces can't have any visible faces either.
+        int enclosedFaces = uniformOpaque ? getEnclosedFaces(slice, minX, minY, minZ, blockPos) : 0;
+
+        if (uniformState == null) {
+            cache.getLightDataCache()
+                    .prefillIfDense();
+        }
+
         for (int y = minY; y < maxY; y++) {
             if (cancellationSource.isCancelled()) {
                 return null;
             }
 
             for (int z = minZ; z < maxZ; z++) {
-                for (int x = minX; x < maxX; x++) {
-                    BlockState blockState = slice.getBlockState(x, y, z);
+                boolean interiorRow = skipInterior && isInterior(y & 15) && isInterior(z & 15);
 
-                    if (blockState.isAir()) {
+                // Jump from the first to the last block of rows which pass through the interior of the section
+                for (int x = minX; x < maxX; x = (interiorRow && x == minX) ? maxX - 1 : x + 1) {
+                    if (uniformOpaque && (getBoundaryFaces(x & 15, y & 15, z & 15) & ~enclosedFaces) == 0) {
                         continue;
                     }
 
+                    int stateId = slice.getBlockStateId(x, y, z);
+                    int stateFlags = stateTable.getFlags(stateId);
+
+                    if ((stateFlags & BlockStateTable.AIR) != 0) {
+                        continue;
+                    }
+
+                    BlockState blockState = stateTable.getState(stateId);
+
                     blockPos.set(x, y, z);
                     offset.set(x & 15, y & 15, z & 15);
 
                     boolean rendered = false;
 
-                    if (blockState.getRenderType() == BlockRenderType.MODEL) {
-                        RenderLayer layer = RenderLayers.getBlockLayer(blockState);
+                    if ((stateFlags & BlockStateTable.HAS_MODEL) != 0) {
+                        RenderLayer layer = stateTable.getBlockLayer(stateId);
 
                         BakedModel model = cache.getBlockModels()
                                 .getModel(blockState);
@@ -102,18 +171,19 @@ public class ChunkRenderRebuildTask extends ChunkRenderBuildTask {
                         }
                     }
 
-                    FluidState fluidState = blockState.getFluidState();
+                    if ((stateFlags & BlockStateTable.HAS_FLUID) != 0) {
+                        RenderLayer layer = stateTable.getFluidLayer(stateId);
+                        ChunkModelBuilder builder = buffers.get(layer);
 
-                    if (!fluidState.isEmpty()) {
-                        RenderLayer layer = RenderLayers.getFluidLayer(fluidState);
+                        if (cache.getFluidRenderer().render(slice, blockState.getFluidState(), blockPos, offset, builder)) {
+                            builder.recordFluid(blockState, offset);
 
-                        if (cache.getFluidRenderer().render(slice, fluidState, blockPos, offset, buffers.get(layer))) {
                             renderData.addRenderLayer(layer);
                             rendered = true;
                         }
                     }
 
-                    if (blockState.hasBlockEntity()) {
+                    if ((stateFlags & BlockStateTable.HAS_BLOCK_ENTITY) != 0) {
                         BlockEntity entity = slice.getBlockEntity(blockPos);
 
                         if (entity != null) {
@@ -126,8 +196,9 @@ public class ChunkRenderRebuildTask extends ChunkRenderBuildTask {
                         }
                     }
 
-                    if (blockState.isOpaqueFullCube(slice, blockPos)) {
+                    if (stateTable.isOpaqueFullCube(stateId, slice, blockPos)) {
                         occluder.markClosed(blockPos);
+                        countOpaqueFaceBlock(opaqueFaceBlocks, x & 15, y & 15, z & 15);
                     }
 
                     if (rendered) {
@@ -138,18 +209,130 @@ public class ChunkRenderRebuildTask extends ChunkRenderBuildTask {
         }
 
         Map<BlockRenderPass, ChunkMeshData> meshes = new EnumMap<>(BlockRenderPass.class);
+        Map<BlockRenderPass, TranslucentQuadData> translucentQuads = new EnumMap<>(BlockRenderPass.class);
+
+        buffers.createMeshes(meshes, translucentQuads, this.cameraX, this.cameraY, this.cameraZ);
+
+        if (uniformOpaque) {
+            // Not every block was visited, but they're all known to be opaque, so nothing can be seen through the section
+            renderData.setOcclusionData(new ChunkOcclusionData());
+            renderData.setOpaqueFaces((1 << DirectionUtil.COUNT) - 1);
+        } else {
+            renderData.setOcclusionData(occluder.build());
+            renderData.setOpaqueFaces(getOpaqueFaces(opaqueFaceBlocks));
+        }
+        renderData.setBounds(bounds.build(this.render.getChunkPos()));
+        renderData.setLightUpdateData(buffers.createLightUpdateData());
+
+        ChunkBuildResult result = new ChunkBuildResult(this.render, renderData.build(), meshes, translucentQuads, fingerprint, this.frame);
 
-        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
-            ChunkMeshData mesh = buffers.createMesh(pass);
+        if (this.meshCache != null) {
+            this.meshCache.store(this.render, contentHash, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return True if a section which is completely filled with the given block state can't have any visible faces
+     * except on its boundary. This is true for opaque full cubes, and for fluids without a block model, since their
+     * faces are always culled against each other.
+     */
+    private static boolean hasHiddenInterior(BlockState state, WorldSlice slice, BlockPos pos) {
+        if (state.hasBlockEntity()) {
+            return false;
+        }
+
+        if (state.getRenderType() == BlockRenderType.MODEL) {
+            return state.getFluidState().isEmpty() && state.isOpaqueFullCube(slice, pos);
+        }
+
+        FluidState fluidState = state.getFluidState();
 
-            if (mesh != null) {
-                meshes.put(pass, mesh);
+        return !fluidState.isEmpty() && fluidState.getBlockState() == state;
+    }
+
+    /**
+     * @return The bit mask of faces (by direction) of the section whose neighbouring blocks are all opaque full cubes
+     */
+    private static int getEnclosedFaces(WorldSlice slice, int minX, int minY, int minZ, BlockPos.Mutable pos) {
+        int faces = 0;
+
+        for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+            if (isFaceEnclosed(slice, dir, minX, minY, minZ, pos)) {
+                faces |= 1 << dir;
             }
         }
 
-        renderData.setOcclusionData(occluder.build());
-        renderData.setBounds(bounds.build(this.render.getChunkPos()));
+        return faces;
+    }
+
+    private static boolean isFaceEnclosed(WorldSlice slice, int dir, int minX, int minY, int minZ, BlockPos.Mutable pos) {
+        for (int u = 0; u < 16; u++) {
+            for (int v = 0; v < 16; v++) {
+                if (dir == DirectionUtil.DOWN) {
+                    pos.set(minX + u, minY - 1, minZ + v);
+                } else if (dir == DirectionUtil.UP) {
+                    pos.set(minX + u, minY + 16, minZ + v);
+                } else if (dir == DirectionUtil.NORTH) {
+                    pos.set(minX + u, minY + v, minZ - 1);
+                } else if (dir == DirectionUtil.SOUTH) {
+                    pos.set(minX + u, minY + v, minZ + 16);
+                } else if (dir == DirectionUtil.WEST) {
+                    pos.set(minX - 1, minY + u, minZ + v);
+                } else {
+                    pos.set(minX + 16, minY + u, minZ + v);
+                }
+
+                if (!slice.getBlockState(pos).isOpaqueFullCube(slice, pos)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isInterior(int coord) {
+        return coord > 0 && coord < 15;
+    }
+
+    /**
+     * @return The bit mask of faces (by direction) of the section's boundary which the block at the given local
+     * coordinates lies on
+     */
+    private static int getBoundaryFaces(int x, int y, int z) {
+        int faces = 0;
+
+        if (y == 0) faces |= 1 << DirectionUtil.DOWN;
+        if (y == 15) faces |= 1 << DirectionUtil.UP;
+        if (z == 0) faces |= 1 << DirectionUtil.NORTH;
+        if (z == 15) faces |= 1 << DirectionUtil.SOUTH;
+        if (x == 0) faces |= 1 << DirectionUtil.WEST;
+        if (x == 15) faces |= 1 << DirectionUtil.EAST;
+
+        return faces;
+    }
+
+    private static void countOpaqueFaceBlock(int[] counts, int x, int y, int z) {
+        if (y == 0) counts[DirectionUtil.DOWN]++;
+        if (y == 15) counts[DirectionUtil.UP]++;
+        if (z == 0) counts[DirectionUtil.NORTH]++;
+        if (z == 15) counts[DirectionUtil.SOUTH]++;
+        if (x == 0) counts[DirectionUtil.WEST]++;
+        if (x == 15) counts[DirectionUtil.EAST]++;
+    }
+
+    private static int getOpaqueFaces(int[] counts) {
+        int faces = 0;
+
+        for (int dir = 0; dir < DirectionUtil.COUNT; dir++) {
+            // Every block on the face must be opaque for it to be used as an occluder
+            if (counts[dir] == 16 * 16) {
+                faces |= 1 << dir;
+            }
+        }
 
-        return new ChunkBuildResult(this.render, renderData.build(), meshes, this.frame);
+        return faces;
     }
 }
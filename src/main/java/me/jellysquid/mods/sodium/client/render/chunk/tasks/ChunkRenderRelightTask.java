@@ -0,0 +1,107 @@
+package me.jellysquid.mods.sodium.client.render.chunk.tasks;
+
+import me.jellysquid.mods.sodium.client.gl.compile.ChunkBuildContext;
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkLightUpdateData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderCacheLocal;
+import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Creates the meshes of a chunk again after only its light has changed. Instead of visiting every block of the chunk
+ * and looking up its model, the quads which were recorded by the last rebuild of the chunk are lit again and written
+ * in the same order. The render data of the chunk is kept as it is, since its blocks haven't changed.
+ */
+public class ChunkRenderRelightTask extends ChunkRenderBuildTask {
+    private final RenderSection render;
+    private final ChunkRenderContext renderContext;
+    private final ChunkRenderData data;
+    private final int frame;
+
+    // The fingerprint of the inputs which the current meshes of the section were built from
+    private final long previousFingerprint;
+
+    // The position of the camera relative to the origin of the section, which translucent quads are sorted against
+    private final float cameraX, cameraY, cameraZ;
+
+    public ChunkRenderRelightTask(RenderSection render, ChunkRenderContext renderContext, ChunkRenderData data, int frame,
+                                  long previousFingerprint, float cameraX, float cameraY, float cameraZ) {
+        this.render = render;
+        this.renderContext = renderContext;
+        this.data = data;
+        this.frame = frame;
+        this.previousFingerprint = previousFingerprint;
+
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+    }
+
+    @Override
+    public ChunkBuildResult performBuild(ChunkBuildContext buildContext, CancellationSource cancellationSource) {
+        ChunkRenderCacheLocal cache = buildContext.cache;
+        cache.init(this.renderContext);
+
+        WorldSlice slice = cache.getWorldSlice();
+        long fingerprint = slice.computeFingerprint(slice.computeContentHash());
+
+        if (fingerprint != WorldSlice.NO_FINGERPRINT && fingerprint == this.previousFingerprint) {
+            return ChunkBuildResult.unchanged(this.render, fingerprint, this.frame);
+        }
+
+        ChunkBuildBuffers buffers = buildContext.buffers;
+
+        // The sprites and layers of the chunk are unchanged, so the render data written by the builders is discarded
+        buffers.init(new ChunkRenderData.Builder(), this.render.getLocalId());
+        ChunkLightUpdateData quads = this.data.getLightUpdateData();
+
+        BlockPos.Mutable blockPos = new BlockPos.Mutable();
+        BlockPos.Mutable offset = new BlockPos.Mutable();
+
+        for (int i = 0; i < quads.size(); i++) {
+            if ((i & 1023) == 0 && cancellationSource.isCancelled()) {
+                return null;
+            }
+
+            int x = quads.getLocalX(i);
+            int y = quads.getLocalY(i);
+            int z = quads.getLocalZ(i);
+
+            blockPos.set(this.render.getOriginX() + x, this.render.getOriginY() + y, this.render.getOriginZ() + z);
+            offset.set(x, y, z);
+
+            BlockState state = quads.getState(i);
+            BakedQuad quad = quads.getQuad(i);
+
+            ChunkModelBuilder builder = buffers.get(BlockRenderPass.VALUES[quads.getPass(i)]);
+
+            if (quad == null) {
+                cache.getFluidRenderer().render(slice, state.getFluidState(), blockPos, offset, builder);
+            } else {
+                cache.getBlockRenderer().relightQuad(slice, state, blockPos, offset, quad, quads.getCullFace(i),
+                        quads.getLightMode(i), builder);
+            }
+        }
+
+        Map<BlockRenderPass, ChunkMeshData> meshes = new EnumMap<>(BlockRenderPass.class);
+        Map<BlockRenderPass, TranslucentQuadData> translucentQuads = new EnumMap<>(BlockRenderPass.class);
+
+        buffers.createMeshes(meshes, translucentQuads, this.cameraX, this.cameraY, this.cameraZ);
+
+        return new ChunkBuildResult(this.render, this.data, meshes, translucentQuads, fingerprint, this.frame);
+    }
+}
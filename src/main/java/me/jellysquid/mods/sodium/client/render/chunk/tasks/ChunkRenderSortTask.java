@@ -0,0 +1,48 @@
+package me.jellysquid.mods.sodium.client.render.chunk.tasks;
+
+import me.jellysquid.mods.sodium.client.gl.compile.ChunkBuildContext;
+import me.jellysquid.mods.sodium.client.render.chunk.RenderSection;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.TranslucentQuadData;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sorts the translucent quads of a chunk again for a new camera position, using the quads which were kept from its
+ * last rebuild. The result only replaces the meshes of the translucent render passes, so nothing else about the chunk
+ * needs to be rebuilt or uploaded again.
+ */
+public class ChunkRenderSortTask extends ChunkRenderBuildTask {
+    private final RenderSection render;
+    private final Map<BlockRenderPass, TranslucentQuadData> translucentQuads;
+    private final int frame;
+
+    // The position of the camera relative to the origin of the section
+    private final float cameraX, cameraY, cameraZ;
+
+    public ChunkRenderSortTask(RenderSection render, Map<BlockRenderPass, TranslucentQuadData> translucentQuads, int frame,
+                               float cameraX, float cameraY, float cameraZ) {
+        this.render = render;
+        this.translucentQuads = translucentQuads;
+        this.frame = frame;
+
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+    }
+
+    @Override
+    public ChunkBuildResult performBuild(ChunkBuildContext context, CancellationSource cancellationSource) {
+        Map<BlockRenderPass, ChunkMeshData> meshes = new EnumMap<>(BlockRenderPass.class);
+
+        for (Map.Entry<BlockRenderPass, TranslucentQuadData> entry : this.translucentQuads.entrySet()) {
+            meshes.put(entry.getKey(), entry.getValue().createSortedMesh(this.cameraX, this.cameraY, this.cameraZ));
+        }
+
+        return new ChunkBuildResult(this.render, meshes, this.translucentQuads, this.frame);
+    }
+}
@@ -1,6 +1,5 @@
 package me.jellysquid.mods.sodium.client.render.pipeline;
 
-import me.jellysquid.mods.sodium.client.model.IndexBufferBuilder;
 import me.jellysquid.mods.sodium.client.model.light.LightMode;
 import me.jellysquid.mods.sodium.client.model.light.LightPipeline;
 import me.jellysquid.mods.sodium.client.model.light.LightPipelineProvider;
@@ -9,7 +8,6 @@ import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
 import me.jellysquid.mods.sodium.client.model.quad.blender.ColorBlender;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadOrientation;
-import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadWinding;
 import me.jellysquid.mods.sodium.client.model.quad.blender.ColorSampler;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
@@ -54,9 +52,13 @@ public class BlockRenderer {
     }
 
     public boolean renderModel(BlockRenderView world, BlockState state, BlockPos pos, BlockPos origin, BakedModel model, ChunkModelBuilder buffers, boolean cull, long seed) {
-        LightPipeline lighter = this.lighters.getLighter(this.getLightingMode(state, model));
+        LightMode mode = this.getLightingMode(state, model);
+        LightPipeline lighter = this.lighters.getLighter(mode);
         Vec3d offset = state.getModelOffset(world, pos);
 
+        // Only the faces of opaque cubes which aren't offset can be merged with their neighbours
+        boolean canMerge = buffers.getQuadMerger() != null && offset.equals(Vec3d.ZERO) && state.isOpaqueFullCube(world, pos);
+
         boolean rendered = false;
 
         for (Direction dir : DirectionUtil.ENUMS) {
@@ -69,7 +71,7 @@ public class BlockRenderer {
             }
 
             if (!cull || this.occlusionCache.shouldDrawSide(state, world, pos, dir)) {
-                this.renderQuadList(world, state, pos, origin, lighter, offset, buffers, sided, dir);
+                this.renderQuadList(world, state, pos, origin, mode, lighter, offset, buffers, sided, dir, canMerge && sided.size() == 1);
 
                 rendered = true;
             }
@@ -80,7 +82,7 @@ public class BlockRenderer {
         List<BakedQuad> all = model.getQuads(state, null, this.random);
 
         if (!all.isEmpty()) {
-            this.renderQuadList(world, state, pos, origin, lighter, offset, buffers, all, null);
+            this.renderQuadList(world, state, pos, origin, mode, lighter, offset, buffers, all, null, false);
 
             rendered = true;
         }
@@ -88,16 +90,14 @@ public class BlockRenderer {
         return rendered;
     }
 
-    private void renderQuadList(BlockRenderView world, BlockState state, BlockPos pos, BlockPos origin, LightPipeline lighter, Vec3d offset,
-                                ChunkModelBuilder buffers, List<BakedQuad> quads, Direction cullFace) {
+    private void renderQuadList(BlockRenderView world, BlockState state, BlockPos pos, BlockPos origin, LightMode mode, LightPipeline lighter,
+                                Vec3d offset, ChunkModelBuilder buffers, List<BakedQuad> quads, Direction cullFace, boolean merge) {
         ModelQuadFacing facing = cullFace == null ? ModelQuadFacing.UNASSIGNED : ModelQuadFacing.fromDirection(cullFace);
         ColorSampler<BlockState> colorizer = null;
 
-        ModelVertexSink vertices = buffers.getVertexSink();
+        ModelVertexSink vertices = buffers.getVertexSink(facing);
         vertices.ensureCapacity(quads.size() * 4);
 
-        IndexBufferBuilder indices = buffers.getIndexBufferBuilder(facing);
-
         // This is a very hot allocation, iterate over it manually
         // noinspection ForLoopReplaceableByForEach
         for (int i = 0, quadsSize = quads.size(); i < quadsSize; i++) {
@@ -110,13 +110,40 @@ public class BlockRenderer {
                 colorizer = this.blockColors.getColorProvider(state);
             }
 
-            this.renderQuad(world, state, pos, origin, vertices, indices, offset, colorizer, quad, light, buffers);
+            if (merge && this.mergeQuad(world, state, pos, origin, colorizer, quad, light, cullFace, buffers)) {
+                continue;
+            }
+
+            this.renderQuad(world, state, pos, origin, vertices, offset, colorizer, quad, light, buffers);
+
+            buffers.recordQuad(state, origin, quad, cullFace, mode);
         }
 
         vertices.flush();
     }
 
-    private void renderQuad(BlockRenderView world, BlockState state, BlockPos pos, BlockPos origin, ModelVertexSink vertices, IndexBufferBuilder indices, Vec3d blockOffset,
+    /**
+     * Lights and renders a single quad of a block again, which was recorded by a previous build of the chunk. This is
+     * used when only the light of a chunk has changed, so the quad is known to still be visible.
+     */
+    public void relightQuad(BlockRenderView world, BlockState state, BlockPos pos, BlockPos origin, BakedQuad quad, Direction cullFace,
+                            LightMode mode, ChunkModelBuilder buffers) {
+        ModelQuadFacing facing = cullFace == null ? ModelQuadFacing.UNASSIGNED : ModelQuadFacing.fromDirection(cullFace);
+        ColorSampler<BlockState> colorizer = quad.hasColor() ? this.blockColors.getColorProvider(state) : null;
+
+        ModelVertexSink vertices = buffers.getVertexSink(facing);
+        vertices.ensureCapacity(4);
+
+        QuadLightData light = this.cachedQuadLightData;
+        this.lighters.getLighter(mode)
+                .calculate((ModelQuadView) quad, pos, light, cullFace, quad.getFace(), quad.hasShade());
+
+        this.renderQuad(world, state, pos, origin, vertices, state.getModelOffset(world, pos), colorizer, quad, light, buffers);
+
+        vertices.flush();
+    }
+
+    private void renderQuad(BlockRenderView world, BlockState state, BlockPos pos, BlockPos origin, ModelVertexSink vertices, Vec3d blockOffset,
                             ColorSampler<BlockState> colorSampler, BakedQuad bakedQuad, QuadLightData light, ChunkModelBuilder model) {
         ModelQuadView src = (ModelQuadView) bakedQuad;
         ModelQuadOrientation orientation = ModelQuadOrientation.orientByBrightness(light.br);
@@ -127,8 +154,6 @@ public class BlockRenderer {
             colors = this.colorBlender.getColors(world, pos, src, colorSampler, state);
         }
 
-        int vertexStart = vertices.getVertexCount();
-
         for (int i = 0; i < 4; i++) {
             int j = orientation.getVertexIndex(i);
 
@@ -147,8 +172,6 @@ public class BlockRenderer {
 
         }
 
-        indices.add(vertexStart, ModelQuadWinding.CLOCKWISE);
-
         Sprite sprite = src.getSprite();
 
         if (sprite != null) {
@@ -156,6 +179,39 @@ public class BlockRenderer {
         }
     }
 
+    /**
+     * Tries to hand the quad over to the quad merger of the model builder, which is only possible if every vertex has
+     * the same color and light.
+     * @return True if the quad was accepted by the merger, or false if it needs to be rendered normally
+     */
+    private boolean mergeQuad(BlockRenderView world, BlockState state, BlockPos pos, BlockPos origin, ColorSampler<BlockState> colorSampler,
+                              BakedQuad bakedQuad, QuadLightData light, Direction cullFace, ChunkModelBuilder model) {
+        ModelQuadView src = (ModelQuadView) bakedQuad;
+
+        int[] colors = null;
+
+        if (bakedQuad.hasColor()) {
+            colors = this.colorBlender.getColors(world, pos, src, colorSampler, state);
+        }
+
+        int color = ColorABGR.mul(colors != null ? colors[0] : 0xFFFFFFFF, light.br[0]);
+        int lm = light.lm[0];
+
+        for (int i = 1; i < 4; i++) {
+            if (light.lm[i] != lm || ColorABGR.mul(colors != null ? colors[i] : 0xFFFFFFFF, light.br[i]) != color) {
+                return false;
+            }
+        }
+
+        if (!model.getQuadMerger().add(cullFace, origin.getX(), origin.getY(), origin.getZ(), src, color, lm)) {
+            return false;
+        }
+
+        model.addSprite(src.getSprite());
+
+        return true;
+    }
+
     private LightMode getLightingMode(BlockState state, BakedModel model) {
         if (this.useAmbientOcclusion && model.useAmbientOcclusion() && state.getLuminance() == 0) {
             return LightMode.SMOOTH;
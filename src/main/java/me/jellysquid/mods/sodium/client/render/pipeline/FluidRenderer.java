@@ -11,7 +11,6 @@ import me.jellysquid.mods.sodium.client.model.quad.ModelQuadViewMutable;
 import me.jellysquid.mods.sodium.client.model.quad.blender.ColorBlender;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFlags;
-import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadWinding;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
 import me.jellysquid.mods.sodium.client.util.Norm3b;
@@ -230,14 +229,10 @@ public class FluidRenderer {
 
             this.calculateQuadColors(quad, world, pos, lighter, Direction.UP, 1.0F, colorizer, fluidState);
 
-            int vertexStart = this.writeVertices(buffers, offset, quad);
-
-            buffers.getIndexBufferBuilder(facing)
-                    .add(vertexStart, ModelQuadWinding.CLOCKWISE);
+            this.writeQuad(buffers, facing, offset, quad, false);
 
             if (fluidState.method_15756(world, this.scratchPos.set(posX, posY + 1, posZ))) {
-                buffers.getIndexBufferBuilder(ModelQuadFacing.DOWN)
-                        .add(vertexStart, ModelQuadWinding.COUNTERCLOCKWISE);
+                this.writeQuad(buffers, ModelQuadFacing.DOWN, offset, quad, true);
             }
 
             rendered = true;
@@ -259,10 +254,7 @@ public class FluidRenderer {
 
             this.calculateQuadColors(quad, world, pos, lighter, Direction.DOWN, 1.0F, colorizer, fluidState);
 
-            int vertexStart = this.writeVertices(buffers, offset, quad);
-
-            buffers.getIndexBufferBuilder(ModelQuadFacing.DOWN)
-                    .add(vertexStart, ModelQuadWinding.CLOCKWISE);
+            this.writeQuad(buffers, ModelQuadFacing.DOWN, offset, quad, false);
 
             rendered = true;
         }
@@ -368,14 +360,10 @@ public class FluidRenderer {
 
                 this.calculateQuadColors(quad, world, pos, lighter, dir, br, colorizer, fluidState);
 
-                int vertexStart = this.writeVertices(buffers, offset, quad);
-
-                buffers.getIndexBufferBuilder(facing)
-                        .add(vertexStart, ModelQuadWinding.CLOCKWISE);
+                this.writeQuad(buffers, facing, offset, quad, false);
 
                 if (!isOverlay) {
-                    buffers.getIndexBufferBuilder(facing.getOpposite())
-                            .add(vertexStart, ModelQuadWinding.COUNTERCLOCKWISE);
+                    this.writeQuad(buffers, facing.getOpposite(), offset, quad, true);
                 }
 
                 rendered = true;
@@ -404,23 +392,27 @@ public class FluidRenderer {
         }
     }
 
-    private int writeVertices(ChunkModelBuilder builder, BlockPos offset, ModelQuadView quad) {
-        ModelVertexSink vertices = builder.getVertexSink();
+    /**
+     * Writes the vertices of the quad to the vertex sink of the given facing.
+     * @param flip True if the vertices should be written in reverse order, so that the back of the quad is visible
+     */
+    private void writeQuad(ChunkModelBuilder builder, ModelQuadFacing facing, BlockPos offset, ModelQuadView quad, boolean flip) {
+        ModelVertexSink vertices = builder.getVertexSink(facing);
         vertices.ensureCapacity(4);
 
-        int vertexStart = vertices.getVertexCount();
-
         for (int i = 0; i < 4; i++) {
-            float x = quad.getX(i);
-            float y = quad.getY(i);
-            float z = quad.getZ(i);
+            int j = flip ? (4 - i) & 3 : i;
+
+            float x = quad.getX(j);
+            float y = quad.getY(j);
+            float z = quad.getZ(j);
 
-            int color = this.quadColors[i];
+            int color = this.quadColors[j];
 
-            float u = quad.getTexU(i);
-            float v = quad.getTexV(i);
+            float u = quad.getTexU(j);
+            float v = quad.getTexV(j);
 
-            int light = this.quadLightData.lm[i];
+            int light = this.quadLightData.lm[j];
 
             vertices.writeVertex(offset, x, y, z, color, u, v, light, builder.getChunkId());
         }
@@ -432,8 +424,6 @@ public class FluidRenderer {
         if (sprite != null) {
             builder.addSprite(sprite);
         }
-
-        return vertexStart;
     }
 
     private void setVertex(ModelQuadViewMutable quad, int i, float x, float y, float z, float u, float v) {
@@ -2,10 +2,12 @@ package me.jellysquid.mods.sodium.client.render.pipeline.context;
 
 import me.jellysquid.mods.sodium.client.model.light.LightPipelineProvider;
 import me.jellysquid.mods.sodium.client.model.light.cache.ArrayLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.smooth.SectionSmoothLightPipeline;
 import me.jellysquid.mods.sodium.client.model.quad.blender.ColorBlender;
 import me.jellysquid.mods.sodium.client.render.pipeline.BlockRenderer;
 import me.jellysquid.mods.sodium.client.render.pipeline.ChunkRenderCache;
 import me.jellysquid.mods.sodium.client.render.pipeline.FluidRenderer;
+import me.jellysquid.mods.sodium.client.world.BlockStateTable;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
 import net.minecraft.client.MinecraftClient;
@@ -21,11 +23,12 @@ public class ChunkRenderCacheLocal extends ChunkRenderCache {
     private final BlockModels blockModels;
     private final WorldSlice worldSlice;
 
-    public ChunkRenderCacheLocal(MinecraftClient client, World world) {
-        this.worldSlice = new WorldSlice(world);
+    public ChunkRenderCacheLocal(MinecraftClient client, World world, BlockStateTable stateTable) {
+        this.worldSlice = new WorldSlice(world, stateTable);
         this.lightDataCache = new ArrayLightDataCache(this.worldSlice);
 
-        LightPipelineProvider lightPipelineProvider = new LightPipelineProvider(this.lightDataCache);
+        LightPipelineProvider lightPipelineProvider = new LightPipelineProvider(this.lightDataCache,
+                new SectionSmoothLightPipeline(this.lightDataCache));
         ColorBlender colorBlender = this.createBiomeColorBlender();
 
         this.blockRenderer = new BlockRenderer(client, lightPipelineProvider, colorBlender);
@@ -54,4 +57,8 @@ public class ChunkRenderCacheLocal extends ChunkRenderCache {
     public WorldSlice getWorldSlice() {
         return this.worldSlice;
     }
+
+    public ArrayLightDataCache getLightDataCache() {
+        return this.lightDataCache;
+    }
 }
@@ -0,0 +1,173 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRenderType;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.RenderLayers;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.EmptyBlockView;
+
+/**
+ * Flat tables of the properties of every block state, indexed by their raw IDs in {@link Block#STATE_IDS}. These
+ * properties are needed for every block of a section when it is built, and looking them up from arrays is much cheaper
+ * than calling the methods of {@link BlockState} which compute them.
+ *
+ * The properties which are computed from the world and position of a block only depend on the state for blocks
+ * without dynamic bounds. Other states are flagged with {@link #POSITION_DEPENDENT}, and these properties must be
+ * computed from the block state instead.
+ *
+ * The tables are built when the renderer is created, since the render layers of some blocks depend on the graphics
+ * settings. They are never modified afterwards, so they can be shared by all worker threads.
+ */
+public class BlockStateTable {
+    public static final int AIR = 1 << 0;
+    public static final int HAS_MODEL = 1 << 1;
+    public static final int HAS_FLUID = 1 << 2;
+    public static final int HAS_BLOCK_ENTITY = 1 << 3;
+    public static final int EMITS_LIGHT = 1 << 4;
+
+    // The properties below are only valid for states which aren't position dependent
+    public static final int OPAQUE_FULL_CUBE = 1 << 5;
+    public static final int FULL_CUBE = 1 << 6;
+    public static final int TRANSPARENT = 1 << 7;
+    public static final int EMISSIVE = 1 << 8;
+
+    public static final int POSITION_DEPENDENT = 1 << 9;
+
+    private final BlockState[] states;
+    private final int[] flags;
+
+    private final float[] ambientOcclusion;
+
+    private final RenderLayer[] blockLayers;
+    private final RenderLayer[] fluidLayers;
+
+    public BlockStateTable() {
+        int count = Block.STATE_IDS.size();
+
+        this.states = new BlockState[count];
+        this.flags = new int[count];
+        this.ambientOcclusion = new float[count];
+        this.blockLayers = new RenderLayer[count];
+        this.fluidLayers = new RenderLayer[count];
+
+        for (int id = 0; id < count; id++) {
+            BlockState state = Block.STATE_IDS.get(id);
+
+            if (state != null) {
+                this.init(id, state);
+            }
+        }
+    }
+
+    private void init(int id, BlockState state) {
+        int flags = 0;
+
+        if (state.isAir()) {
+            flags |= AIR;
+        }
+
+        if (state.getRenderType() == BlockRenderType.MODEL) {
+            flags |= HAS_MODEL;
+            this.blockLayers[id] = RenderLayers.getBlockLayer(state);
+        }
+
+        FluidState fluidState = state.getFluidState();
+
+        if (!fluidState.isEmpty()) {
+            flags |= HAS_FLUID;
+            this.fluidLayers[id] = RenderLayers.getFluidLayer(fluidState);
+        }
+
+        if (state.hasBlockEntity()) {
+            flags |= HAS_BLOCK_ENTITY;
+        }
+
+        if (state.getLuminance() != 0) {
+            flags |= EMITS_LIGHT;
+        }
+
+        if (state.getBlock().hasDynamicBounds()) {
+            flags |= POSITION_DEPENDENT;
+        } else {
+            try {
+                flags |= getStaticFlags(state, EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+                this.ambientOcclusion[id] = state.getAmbientOcclusionLightLevel(EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+            } catch (RuntimeException e) {
+                // Some blocks from mods expect to be queried with a real world, so they have to take the slow path
+                flags |= POSITION_DEPENDENT;
+            }
+        }
+
+        this.states[id] = state;
+        this.flags[id] = flags;
+    }
+
+    private static int getStaticFlags(BlockState state, BlockView world, BlockPos pos) {
+        int flags = 0;
+
+        if (state.isOpaqueFullCube(world, pos)) {
+            flags |= OPAQUE_FULL_CUBE;
+        }
+
+        if (state.isFullCube(world, pos)) {
+            flags |= FULL_CUBE;
+        }
+
+        if (!state.shouldBlockVision(world, pos) || state.getOpacity(world, pos) == 0) {
+            flags |= TRANSPARENT;
+        }
+
+        if (state.hasEmissiveLighting(world, pos)) {
+            flags |= EMISSIVE;
+        }
+
+        return flags;
+    }
+
+    public BlockState getState(int id) {
+        return this.states[id];
+    }
+
+    public int getFlags(int id) {
+        return this.flags[id];
+    }
+
+    /**
+     * @return The ambient occlusion light level of the state, which is only valid if it isn't position dependent
+     */
+    public float getAmbientOcclusion(int id) {
+        return this.ambientOcclusion[id];
+    }
+
+    /**
+     * @return The render layer of the state's block model, or null if it isn't rendered with a model
+     */
+    public RenderLayer getBlockLayer(int id) {
+        return this.blockLayers[id];
+    }
+
+    /**
+     * @return The render layer of the state's fluid, or null if it doesn't contain a fluid
+     */
+    public RenderLayer getFluidLayer(int id) {
+        return this.fluidLayers[id];
+    }
+
+    /**
+     * @return True if the block at the given position is an opaque full cube, using the table unless the state is
+     * position dependent
+     */
+    public boolean isOpaqueFullCube(int id, BlockView world, BlockPos pos) {
+        int flags = this.flags[id];
+
+        if ((flags & POSITION_DEPENDENT) != 0) {
+            return this.states[id].isOpaqueFullCube(world, pos);
+        }
+
+        return (flags & OPAQUE_FULL_CUBE) != 0;
+    }
+}
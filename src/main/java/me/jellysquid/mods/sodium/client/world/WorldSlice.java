@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.world;
 
+import it.unimi.dsi.fastutil.HashCommon;
 import me.jellysquid.mods.sodium.client.world.biome.BlockColorCache;
 import me.jellysquid.mods.sodium.client.world.cloned.ChunkRenderContext;
 import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSection;
@@ -7,12 +8,13 @@ import me.jellysquid.mods.sodium.client.world.cloned.ClonedChunkSectionCache;
 import me.jellysquid.mods.sodium.client.world.cloned.PackedIntegerArrayExtended;
 import me.jellysquid.mods.sodium.client.world.cloned.palette.ClonedPalette;
 import net.fabricmc.fabric.api.rendering.data.v1.RenderAttachedBlockView;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.fluid.FluidState;
 import net.minecraft.registry.entry.RegistryEntry;
-import net.minecraft.util.collection.PackedIntegerArray;
 import net.minecraft.util.math.*;
 import net.minecraft.world.BlockRenderView;
 import net.minecraft.world.LightType;
@@ -26,10 +28,12 @@ import net.minecraft.world.chunk.WorldChunk;
 import net.minecraft.world.chunk.light.LightingProvider;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+
 /**
  * Takes a slice of world state (block states, biome and light data arrays) and copies the data for use in off-thread
- * operations. This allows chunk build tasks to see a consistent snapshot of chunk data at the exact moment the task was
- * created.
+ * operations. The block entities of each section are captured when the task is created, and the remaining data is
+ * copied by the worker thread when the task starts. See {@link ClonedChunkSection} for details.
  *
  * World slices are not safe to use from multiple threads at once, but the data they contain is safe from modification
  * by the main client thread.
@@ -37,6 +41,12 @@ import org.jetbrains.annotations.Nullable;
  * Object pooling should be used to avoid huge allocations as this class contains many large arrays.
  */
 public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
+    /**
+     * The fingerprint of a slice which can't be compared with other slices. This never matches the fingerprint of a
+     * slice which can be compared (barring a hash collision).
+     */
+    public static final long NO_FINGERPRINT = 0L;
+
     // The number of blocks in a section.
     private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
 
@@ -46,6 +56,15 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
     // The radius of blocks around the origin chunk that should be copied.
     private static final int NEIGHBOR_BLOCK_RADIUS = 2;
 
+    // The number of blocks on each axis of the copied volume.
+    private static final int BLOCK_LENGTH = 16 + (NEIGHBOR_BLOCK_RADIUS * 2);
+
+    // The number of blocks in the copied volume.
+    private static final int BLOCK_COUNT = BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH;
+
+    // The raw ID of the block state returned for positions outside the copied volume.
+    private static final int AIR_ID = Block.getRawIdFromState(Blocks.AIR.getDefaultState());
+
     // The radius of chunks around the origin chunk that should be copied.
     private static final int NEIGHBOR_CHUNK_RADIUS = MathHelper.roundUpToMultiple(NEIGHBOR_BLOCK_RADIUS, 16) >> 4;
 
@@ -74,8 +93,14 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
     // The accessor used for fetching biome data from the slice
     private final BiomeAccess biomeAccess;
 
-    // Local Section->BlockState table.
-    private final BlockState[][] blockStatesArrays;
+    // The raw block state IDs of the copied volume, which only covers the origin section and the blocks around it
+    private final int[] blockStateIds;
+
+    // Scratch space for unpacking the raw block state IDs of the origin section
+    private final int[] sectionBlockStateIds;
+
+    // The properties of every block state, indexed by raw ID
+    private final BlockStateTable stateTable;
 
     // Local Section->Biome table.
     private final RegistryEntry<Biome>[][] biomeArrays;
@@ -89,9 +114,15 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
     // The starting point from which this slice captures blocks
     private int baseX, baseY, baseZ;
 
+    // The minimum corner of the copied volume of blocks
+    private int volumeX, volumeY, volumeZ;
+
     // The chunk origin of this slice
     private ChunkSectionPos origin;
 
+    // The biome blend radius which the biome colors of this slice are blended with
+    private int biomeBlendRadius;
+
     public static ChunkRenderContext prepare(World world, ChunkSectionPos origin, ClonedChunkSectionCache sectionCache) {
         WorldChunk chunk = world.getChunk(origin.getX(), origin.getZ());
         ChunkSection section = chunk.getSectionArray()[world.sectionCoordToIndex(origin.getY())];
@@ -133,13 +164,15 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
         return new ChunkRenderContext(origin, sections, volume);
     }
 
-    public WorldSlice(World world) {
+    public WorldSlice(World world, BlockStateTable stateTable) {
         this.world = world;
+        this.stateTable = stateTable;
 
         this.biomeAccess = new BiomeAccess(this::getStoredBiome, ((BiomeSeedProvider) this.world).getBiomeSeed());
 
         this.sections = new ClonedChunkSection[SECTION_TABLE_ARRAY_SIZE];
-        this.blockStatesArrays = new BlockState[SECTION_TABLE_ARRAY_SIZE][SECTION_BLOCK_COUNT];
+        this.blockStateIds = new int[BLOCK_COUNT];
+        this.sectionBlockStateIds = new int[SECTION_BLOCK_COUNT];
         this.biomeArrays = new RegistryEntry[SECTION_TABLE_ARRAY_SIZE][SECTION_BIOME_COUNT];
 
     }
@@ -148,35 +181,147 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
         this.origin = context.getOrigin();
         this.sections = context.getSections();
 
+        // Most of the section data is copied by the first worker thread which needs it, rather than by the main thread
+        for (ClonedChunkSection section : this.sections) {
+            if (section != null) {
+                section.ensureCopied();
+            }
+        }
+
         this.baseX = (this.origin.getX() - NEIGHBOR_CHUNK_RADIUS) << 4;
         this.baseY = (this.origin.getY() - NEIGHBOR_CHUNK_RADIUS) << 4;
         this.baseZ = (this.origin.getZ() - NEIGHBOR_CHUNK_RADIUS) << 4;
 
+        this.volumeX = this.origin.getMinX() - NEIGHBOR_BLOCK_RADIUS;
+        this.volumeY = this.origin.getMinY() - NEIGHBOR_BLOCK_RADIUS;
+        this.volumeZ = this.origin.getMinZ() - NEIGHBOR_BLOCK_RADIUS;
+
         for (int x = 0; x < SECTION_LENGTH; x++) {
             for (int y = 0; y < SECTION_LENGTH; y++) {
                 for (int z = 0; z < SECTION_LENGTH; z++) {
                     int idx = getLocalSectionIndex(x, y, z);
-                    this.unpackBlockData(this.blockStatesArrays[idx], this.sections[idx], context.getVolume());
+                    this.unpackBlockData(this.sections[idx], context.getVolume());
                     this.unpackBiomeData(this.biomeArrays[idx], this.sections[idx]);
                 }
             }
         }
 
-        this.biomeColors = new BlockColorCache(this, MinecraftClient.getInstance().options.getBiomeBlendRadius().getValue());
+        this.biomeBlendRadius = MinecraftClient.getInstance().options.getBiomeBlendRadius().getValue();
+        this.biomeColors = new BlockColorCache(this, this.biomeBlendRadius);
     }
 
-    private void unpackBlockData(BlockState[] states, ClonedChunkSection section, BlockBox box) {
-        if (this.origin.equals(section.getPosition()))  {
-            this.unpackBlockData(states, section);
-        } else {
-            this.unpackBlockDataSlow(states, section, box);
+    /**
+     * Computes a hash of the contents of this slice which can affect the meshes of the origin section. This covers the
+     * block states of the copied volume, the light of the origin section and the blocks next to it, and the biomes of
+     * every section along with the biome blend radius.
+     *
+     * Block states are hashed by their raw IDs and biomes by their registry keys and colors, so the hash of the same
+     * contents stays the same across game sessions, as long as the same mods are loaded.
+     *
+     * @return The hash of the slice, or {@link #NO_FINGERPRINT} if it contains render attachments. These are provided by
+     * block entities and can change at any time without the block entity being replaced, so the meshes of slices with
+     * them can never be reused.
+     */
+    public long computeContentHash() {
+        for (ClonedChunkSection section : this.sections) {
+            if (section.hasRenderAttachments()) {
+                return NO_FINGERPRINT;
+            }
+        }
+
+        long hash = this.biomeBlendRadius;
+
+        int minX = this.origin.getMinX(), maxX = this.origin.getMaxX();
+        int minY = this.origin.getMinY(), maxY = this.origin.getMaxY();
+        int minZ = this.origin.getMinZ(), maxZ = this.origin.getMaxZ();
+
+        for (int id : this.blockStateIds) {
+            hash = mixHash(hash, id);
+        }
+
+        // Blocks are only lit by the light of their neighbours, so light changes further away can be ignored
+        for (int y = minY - 1; y <= maxY + 1; y++) {
+            for (int z = minZ - 1; z <= maxZ + 1; z++) {
+                for (int x = minX - 1; x <= maxX + 1; x++) {
+                    int relX = x - this.baseX;
+                    int relY = y - this.baseY;
+                    int relZ = z - this.baseZ;
+
+                    ClonedChunkSection section = this.sections[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)];
+
+                    int blockLight = section.getLightLevel(LightType.BLOCK, relX & 15, relY & 15, relZ & 15);
+                    int skyLight = section.getLightLevel(LightType.SKY, relX & 15, relY & 15, relZ & 15);
+
+                    hash = mixHash(hash, (skyLight << 4) | blockLight);
+                }
+            }
+        }
+
+        // Most sections only contain a few different biomes, so the hash of the last one is kept
+        RegistryEntry<Biome> lastBiome = null;
+        long lastBiomeHash = 0;
+
+        for (RegistryEntry<Biome>[] biomes : this.biomeArrays) {
+            for (RegistryEntry<Biome> biome : biomes) {
+                if (biome != lastBiome) {
+                    lastBiome = biome;
+                    lastBiomeHash = hashBiome(biome);
+                }
+
+                hash = mixHash(hash, lastBiomeHash);
+            }
         }
+
+        return hash;
     }
 
-    private void unpackBlockDataSlow(BlockState[] states, ClonedChunkSection section, BlockBox box) {
-        PackedIntegerArray intArray = section.getBlockData();
-        ClonedPalette<BlockState> palette = section.getBlockPalette();
+    /**
+     * Computes the fingerprint of this slice from the hash of its contents, which also covers the identities of the
+     * block entities in every section. The block entities which are rendered by a section are kept with its meshes, so
+     * they can only be reused if the same block entities are still present.
+     *
+     * @param contentHash The hash returned by {@link #computeContentHash()}
+     * @return The fingerprint of the slice, or {@link #NO_FINGERPRINT} if the contents of the slice couldn't be hashed
+     */
+    public long computeFingerprint(long contentHash) {
+        if (contentHash == NO_FINGERPRINT) {
+            return NO_FINGERPRINT;
+        }
+
+        long hash = contentHash;
+
+        for (ClonedChunkSection section : this.sections) {
+            hash = mixHash(hash, section.getBlockEntityFingerprint());
+        }
+
+        return hash;
+    }
 
+    private static long hashBiome(RegistryEntry<Biome> entry) {
+        Biome biome = entry.value();
+
+        // The registry of biomes is sent by the server, so biomes with the same key may have different colors
+        long hash = entry.getKey()
+                .map(key -> key.getValue().hashCode())
+                .orElse(0);
+        hash = mixHash(hash, biome.getWaterColor());
+        hash = mixHash(hash, biome.getFoliageColor());
+        hash = mixHash(hash, biome.getGrassColorAt(0.0, 0.0));
+
+        return hash;
+    }
+
+    /**
+     * Mixes a value into a hash. The hashes computed with this are stable across game sessions.
+     */
+    public static long mixHash(long hash, long value) {
+        return HashCommon.mix((hash * 31L) + value);
+    }
+
+    /**
+     * Copies the raw block state IDs of the part of a section which lies within the copied volume.
+     */
+    private void unpackBlockData(ClonedChunkSection section, BlockBox box) {
         ChunkSectionPos pos = section.getPosition();
 
         int minBlockX = Math.max(box.getMinX(), pos.getMinX());
@@ -188,21 +333,68 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
         int minBlockZ = Math.max(box.getMinZ(), pos.getMinZ());
         int maxBlockZ = Math.min(box.getMaxZ(), pos.getMaxZ());
 
-        for (int y = minBlockY; y <= maxBlockY; y++) {
-            for (int z = minBlockZ; z <= maxBlockZ; z++) {
-                for (int x = minBlockX; x <= maxBlockX; x++) {
-                    int blockIdx = getLocalBlockIndex(x & 15, y & 15, z & 15);
-                    int value = intArray.get(blockIdx);
+        if (minBlockX > maxBlockX || minBlockY > maxBlockY || minBlockZ > maxBlockZ) {
+            return;
+        }
+
+        ClonedPalette<BlockState> palette = section.getBlockPalette();
+        BlockState uniformState = section.getUniformBlockState();
+
+        if (uniformState != null) {
+            int id = palette.getRawId(0);
 
-                    states[blockIdx] = palette.get(value);
+            for (int y = minBlockY; y <= maxBlockY; y++) {
+                for (int z = minBlockZ; z <= maxBlockZ; z++) {
+                    int rowIdx = this.getVolumeIndex(minBlockX, y, z);
+                    Arrays.fill(this.blockStateIds, rowIdx, rowIdx + (maxBlockX - minBlockX) + 1, id);
                 }
             }
+        } else {
+            this.unpackBlockData(section, minBlockX, minBlockY, minBlockZ, maxBlockX, maxBlockY, maxBlockZ);
         }
     }
 
-    private void unpackBlockData(BlockState[] states, ClonedChunkSection section) {
-        ((PackedIntegerArrayExtended) section.getBlockData())
-                .copyUsingPalette(states, section.getBlockPalette());
+    /**
+     * Copies the raw block state IDs of a section which contains different states. The packed indices of the copied
+     * blocks are decoded in bulk first, then their palette entries are resolved in a second pass, and finally the IDs
+     * are copied into the volume row by row.
+     *
+     * When whole layers of the section are copied, which is the case for the origin section and the sections above
+     * and below it, the copied blocks form a single range of indices which is decoded at once. Otherwise, only the
+     * copied part of each row is decoded, since a single range would cover most of the section.
+     */
+    private void unpackBlockData(ClonedChunkSection section, int minBlockX, int minBlockY, int minBlockZ,
+                                 int maxBlockX, int maxBlockY, int maxBlockZ) {
+        int[] ids = this.sectionBlockStateIds;
+
+        PackedIntegerArrayExtended data = (PackedIntegerArrayExtended) section.getBlockData();
+        ClonedPalette<BlockState> palette = section.getBlockPalette();
+
+        boolean wholeLayers = (minBlockX & 15) == 0 && (maxBlockX & 15) == 15 &&
+                (minBlockZ & 15) == 0 && (maxBlockZ & 15) == 15;
+
+        if (wholeLayers) {
+            int fromIndex = getLocalBlockIndex(0, minBlockY & 15, 0);
+            int toIndex = getLocalBlockIndex(15, maxBlockY & 15, 15) + 1;
+
+            data.unpack(ids, fromIndex, toIndex);
+            palette.resolveRawIds(ids, fromIndex, toIndex);
+        }
+
+        int width = (maxBlockX - minBlockX) + 1;
+
+        for (int y = minBlockY; y <= maxBlockY; y++) {
+            for (int z = minBlockZ; z <= maxBlockZ; z++) {
+                int fromIndex = getLocalBlockIndex(minBlockX & 15, y & 15, z & 15);
+
+                if (!wholeLayers) {
+                    data.unpack(ids, fromIndex, fromIndex + width);
+                    palette.resolveRawIds(ids, fromIndex, fromIndex + width);
+                }
+
+                System.arraycopy(ids, fromIndex, this.blockStateIds, this.getVolumeIndex(minBlockX, y, z), width);
+            }
+        }
     }
 
     private void unpackBiomeData(RegistryEntry<Biome>[] biomes, ClonedChunkSection section) {
@@ -215,18 +407,42 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
         }
     }
 
+    /**
+     * @return The block state which every block in the origin section has, or null if it contains different states
+     */
+    public BlockState getUniformBlockState() {
+        return this.sections[getLocalSectionIndex(NEIGHBOR_CHUNK_RADIUS, NEIGHBOR_CHUNK_RADIUS, NEIGHBOR_CHUNK_RADIUS)]
+                .getUniformBlockState();
+    }
+
     @Override
     public BlockState getBlockState(BlockPos pos) {
         return this.getBlockState(pos.getX(), pos.getY(), pos.getZ());
     }
 
     public BlockState getBlockState(int x, int y, int z) {
-        int relX = x - this.baseX;
-        int relY = y - this.baseY;
-        int relZ = z - this.baseZ;
+        return this.stateTable.getState(this.getBlockStateId(x, y, z));
+    }
+
+    /**
+     * @return The raw ID of the block state at the given position, which the properties of the state can be looked up
+     * with in the {@link #getStateTable() state table}
+     */
+    public int getBlockStateId(int x, int y, int z) {
+        int relX = x - this.volumeX;
+        int relY = y - this.volumeY;
+        int relZ = z - this.volumeZ;
+
+        // Blocks outside the copied volume are never meant to be accessed, but some models from mods look further away
+        if ((relX | relY | relZ) < 0 || relX >= BLOCK_LENGTH || relY >= BLOCK_LENGTH || relZ >= BLOCK_LENGTH) {
+            return AIR_ID;
+        }
 
-        return this.blockStatesArrays[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)]
-                [getLocalBlockIndex(relX & 15, relY & 15, relZ & 15)];
+        return this.blockStateIds[(((relY * BLOCK_LENGTH) + relZ) * BLOCK_LENGTH) + relX];
+    }
+
+    public BlockStateTable getStateTable() {
+        return this.stateTable;
     }
 
     @Override
@@ -316,6 +532,13 @@ public class WorldSlice implements BlockRenderView, RenderAttachedBlockView {
         return y << BIOME_BITS << BIOME_BITS | z << BIOME_BITS | x;
     }
 
+    /**
+     * @return The index of the block at the given world coordinates in the copied volume
+     */
+    private int getVolumeIndex(int x, int y, int z) {
+        return ((((y - this.volumeY) * BLOCK_LENGTH) + (z - this.volumeZ)) * BLOCK_LENGTH) + (x - this.volumeX);
+    }
+
     public static int getLocalBlockIndex(int x, int y, int z) {
         return y << BLOCK_BITS << BLOCK_BITS | z << BLOCK_BITS | x;
     }
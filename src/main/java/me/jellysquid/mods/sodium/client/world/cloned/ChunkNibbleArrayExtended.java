@@ -0,0 +1,9 @@
+package me.jellysquid.mods.sodium.client.world.cloned;
+
+public interface ChunkNibbleArrayExtended {
+    /**
+     * @return A snapshot of the light levels in the array, which is shared with every other caller until the array is
+     * modified again
+     */
+    LightDataSnapshot getSnapshot();
+}
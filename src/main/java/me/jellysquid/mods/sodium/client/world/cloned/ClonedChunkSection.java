@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.world.cloned;
 
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMaps;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
@@ -9,6 +10,7 @@ import me.jellysquid.mods.sodium.client.world.cloned.palette.ClonedPalleteArray;
 import net.fabricmc.fabric.api.rendering.data.v1.RenderAttachmentBlockEntity;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.registry.BuiltinRegistries;
 import net.minecraft.registry.RegistryKeys;
@@ -28,29 +30,46 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A copy of the data in a chunk section which can be safely used by chunk build tasks. Only the block entities of the
+ * section are captured on the main thread when the section is cloned, since they can't be accessed from other threads.
+ * The block, light and biome data is copied later by the first worker thread which uses the section, so that the cost
+ * of copying isn't paid by the main thread.
+ *
+ * Modifications which are made to the section in the meantime may or may not be seen by the copy, but every
+ * modification also schedules a rebuild of the section, which will use a fresh copy.
+ *
+ * The light data is kept as immutable snapshots of the light engine's arrays, so it can't change while a build is
+ * reading it. Snapshots are shared by every copy of a section until its light is modified again.
+ */
 public class ClonedChunkSection {
     private static final LightType[] LIGHT_TYPES = LightType.values();
-    private ChunkSection EMPTY_SECTION;
 
     private final Short2ObjectMap<BlockEntity> blockEntities;
     private final Short2ObjectMap<Object> renderAttachments;
 
-    private final ChunkNibbleArray[] lightDataArrays;
+    private final LightDataSnapshot[] lightDataArrays;
 
     private ChunkSectionPos pos;
+    private final int version;
 
     private PackedIntegerArray blockStateData;
     private ClonedPalette<BlockState> blockStatePalette;
+    private BlockState uniformBlockState;
 
     private ReadableContainer<RegistryEntry<Biome>> biomeData;
 
-    ClonedChunkSection(World world, ChunkSectionPos pos) {
+    // The world and the section which the remaining data is copied from, until it has been copied
+    private World world;
+    private ChunkSection section;
+
+    private volatile boolean copied;
+
+    ClonedChunkSection(World world, ChunkSectionPos pos, int version) {
+        this.version = version;
         this.blockEntities = new Short2ObjectOpenHashMap<>();
         this.renderAttachments = new Short2ObjectOpenHashMap<>();
-        this.lightDataArrays = new ChunkNibbleArray[LIGHT_TYPES.length];
-
-        // TODO FIX!!!
-        EMPTY_SECTION =  new ChunkSection(0, world.getRegistryManager().get(RegistryKeys.BIOME));
+        this.lightDataArrays = new LightDataSnapshot[LIGHT_TYPES.length];
 
         WorldChunk chunk = world.getChunk(pos.getX(), pos.getZ());
 
@@ -58,18 +77,43 @@ public class ClonedChunkSection {
             throw new RuntimeException("Couldn't retrieve chunk at " + pos.toChunkPos());
         }
 
-        ChunkSection section = getChunkSection(world, chunk, pos);
+        this.reset(pos);
+
+        this.world = world;
+        this.section = getChunkSection(world, chunk, pos);
+
+        this.copyBlockEntities(chunk, pos);
+    }
 
-        if (section == null) {
-            section = EMPTY_SECTION;
+    /**
+     * Copies the block, light and biome data of the section if it hasn't been copied yet. This must be called by each
+     * thread before the data of the section is accessed.
+     */
+    public void ensureCopied() {
+        if (this.copied) {
+            return;
         }
 
-        this.reset(pos);
+        synchronized (this) {
+            if (this.copied) {
+                return;
+            }
 
-        this.copyBlockData(section);
-        this.copyLightData(world);
-        this.copyBiomeData(section);
-        this.copyBlockEntities(chunk, pos);
+            ChunkSection section = this.section;
+
+            if (section == null) {
+                section = new ChunkSection(0, this.world.getRegistryManager().get(RegistryKeys.BIOME));
+            }
+
+            this.copyBlockData(section);
+            this.copyLightData(this.world);
+            this.copyBiomeData(section);
+
+            this.world = null;
+            this.section = null;
+
+            this.copied = true;
+        }
     }
 
     private void reset(ChunkSectionPos pos) {
@@ -79,24 +123,33 @@ public class ClonedChunkSection {
 
         this.blockStateData = null;
         this.blockStatePalette = null;
+        this.uniformBlockState = null;
 
         this.biomeData = null;
 
-        Arrays.fill(this.lightDataArrays, null);
+        Arrays.fill(this.lightDataArrays, LightDataSnapshot.DARK);
     }
 
     private void copyBlockData(ChunkSection section) {
         PalettedContainer.Data<BlockState> container = PalettedContainerAccessor.getData(section.getBlockStateContainer());
 
+        // The palette of a container can only grow while it's being modified, so copying it after the block data
+        // ensures that every index in the block data refers to an entry in the copied palette
         this.blockStateData = copyBlockData(container);
         this.blockStatePalette = copyPalette(container);
+
+        // Containers which only hold a single value don't store any data for each entry
+        this.uniformBlockState = container.configuration().bits() == 0 ? this.blockStatePalette.get(0) : null;
     }
 
     private void copyLightData(World world) {
         for (LightType type : LIGHT_TYPES) {
-            this.lightDataArrays[type.ordinal()] = world.getLightingProvider()
+            ChunkNibbleArray array = world.getLightingProvider()
                     .get(type)
                     .getLightSection(this.pos);
+
+            this.lightDataArrays[type.ordinal()] = array != null ?
+                    ((ChunkNibbleArrayExtended) array).getSnapshot() : LightDataSnapshot.DARK;
         }
     }
 
@@ -105,16 +158,14 @@ public class ClonedChunkSection {
     }
 
     public int getLightLevel(LightType type, int x, int y, int z) {
-        ChunkNibbleArray array = this.lightDataArrays[type.ordinal()];
-
-        if (array != null) {
-            return array.get(x, y, z);
-        }
-
-        return 0;
+        return this.lightDataArrays[type.ordinal()].get(x, y, z);
     }
 
     private void copyBlockEntities(WorldChunk chunk, ChunkSectionPos chunkCoord) {
+        if (chunk.getBlockEntities().isEmpty()) {
+            return;
+        }
+
         BlockBox box = new BlockBox(chunkCoord.getMinX(), chunkCoord.getMinY(), chunkCoord.getMinZ(),
                 chunkCoord.getMaxX(), chunkCoord.getMaxY(), chunkCoord.getMaxZ());
 
@@ -151,6 +202,24 @@ public class ClonedChunkSection {
         return this.renderAttachments.get(packLocal(x, y, z));
     }
 
+    /**
+     * @return A hash of the positions and identities of the block entities in this section, which doesn't depend on
+     * the order they were captured in
+     */
+    public long getBlockEntityFingerprint() {
+        long hash = 0;
+
+        for (Short2ObjectMap.Entry<BlockEntity> entry : Short2ObjectMaps.fastIterable(this.blockEntities)) {
+            hash += HashCommon.mix(((long) entry.getShortKey() << 32) | (System.identityHashCode(entry.getValue()) & 0xFFFFFFFFL));
+        }
+
+        return hash;
+    }
+
+    public boolean hasRenderAttachments() {
+        return !this.renderAttachments.isEmpty();
+    }
+
     public PackedIntegerArray getBlockData() {
         return this.blockStateData;
     }
@@ -159,10 +228,24 @@ public class ClonedChunkSection {
         return this.blockStatePalette;
     }
 
+    /**
+     * @return The block state which every block in the section has, or null if the section contains different states
+     */
+    public BlockState getUniformBlockState() {
+        return this.uniformBlockState;
+    }
+
     public ChunkSectionPos getPosition() {
         return this.pos;
     }
 
+    /**
+     * @return The modification counter of the section at the time it was cloned
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
     private static ClonedPalette<BlockState> copyPalette(PalettedContainer.Data<BlockState> container) {
         Palette<BlockState> palette = container.palette();
 
@@ -173,10 +256,14 @@ public class ClonedChunkSection {
         BlockState[] array = new BlockState[container.palette().getSize()];
 
         for (int i = 0; i < array.length; i++) {
-            array[i] = palette.get(i);
+            BlockState state = palette.get(i);
+
+            // An entry which is being added by the main thread while the palette is copied might not be visible yet,
+            // but it can't be referenced by the copied block data either
+            array[i] = state != null ? state : Blocks.AIR.getDefaultState();
         }
 
-        return new ClonedPalleteArray<>(array);
+        return new ClonedPalleteArray<>(array, Block.STATE_IDS);
     }
 
     private static PackedIntegerArray copyBlockData(PalettedContainer.Data<BlockState> container) {
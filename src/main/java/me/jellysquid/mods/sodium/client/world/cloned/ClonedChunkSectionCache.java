@@ -1,16 +1,28 @@
 package me.jellysquid.mods.sodium.client.world.cloned;
 
-import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceLinkedOpenHashMap;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.World;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-
+/**
+ * A long-lived cache of cloned chunk sections which is shared by all rebuild tasks. Each section position has a
+ * modification counter which is bumped whenever the blocks or light of the section may have changed, and cloned
+ * sections are only re-used while the counter matches the value it had when they were cloned. The least recently used
+ * sections are evicted once the cache is full.
+ */
 public class ClonedChunkSectionCache {
+    // Each cloned section takes a few kilobytes, so this keeps the cache to roughly ten megabytes
+    private static final int MAX_CACHED_SECTIONS = 2048;
+
     private final World world;
 
-    private final Long2ReferenceMap<ClonedChunkSection> byPosition = new Long2ReferenceOpenHashMap<>();
+    private final Long2ReferenceLinkedOpenHashMap<ClonedChunkSection> byPosition = new Long2ReferenceLinkedOpenHashMap<>();
+
+    // The counters are drawn from a single sequence, so that a section which is unloaded and loaded again never ends
+    // up with a counter which was handed out before
+    private final Long2IntOpenHashMap versions = new Long2IntOpenHashMap();
+    private int nextVersion = 1;
 
     public ClonedChunkSectionCache(World world) {
         this.world = world;
@@ -18,21 +30,59 @@ public class ClonedChunkSectionCache {
 
     public ClonedChunkSection acquire(int x, int y, int z) {
         long key = ChunkSectionPos.asLong(x, y, z);
-        ClonedChunkSection section = this.byPosition.get(key);
+        int version = this.versions.get(key);
 
-        if (section == null) {
-            section = this.createSection(x, y, z);
+        ClonedChunkSection section = this.byPosition.getAndMoveToLast(key);
+
+        if (section == null || section.getVersion() != version) {
+            section = this.createSection(x, y, z, version);
         }
 
         return section;
     }
 
-    private ClonedChunkSection createSection(int x, int y, int z) {
+    private ClonedChunkSection createSection(int x, int y, int z, int version) {
         ChunkSectionPos pos = ChunkSectionPos.from(x, y, z);
-        ClonedChunkSection section = new ClonedChunkSection(this.world, pos);
+        ClonedChunkSection section = new ClonedChunkSection(this.world, pos, version);
 
-        this.byPosition.put(pos.asLong(), section);
+        this.byPosition.putAndMoveToLast(pos.asLong(), section);
+
+        if (this.byPosition.size() > MAX_CACHED_SECTIONS) {
+            this.byPosition.removeFirst();
+        }
 
         return section;
     }
+
+    /**
+     * Marks the section at the given position as modified, so that it will be cloned again the next time it is used.
+     */
+    public void invalidate(int x, int y, int z) {
+        long key = ChunkSectionPos.asLong(x, y, z);
+
+        this.versions.put(key, this.nextVersion++);
+        this.byPosition.remove(key);
+    }
+
+    /**
+     * Marks every section in the chunk column at the given position as modified.
+     */
+    public void invalidateColumn(int x, int z) {
+        for (int y = this.world.getBottomSectionCoord(); y < this.world.getTopSectionCoord(); y++) {
+            this.invalidate(x, y, z);
+        }
+    }
+
+    /**
+     * Forgets about every section in the chunk column at the given position. This must only be used once the chunk
+     * has been unloaded, and the column must be invalidated again before it is used after being loaded.
+     */
+    public void removeColumn(int x, int z) {
+        for (int y = this.world.getBottomSectionCoord(); y < this.world.getTopSectionCoord(); y++) {
+            long key = ChunkSectionPos.asLong(x, y, z);
+
+            this.versions.remove(key);
+            this.byPosition.remove(key);
+        }
+    }
 }
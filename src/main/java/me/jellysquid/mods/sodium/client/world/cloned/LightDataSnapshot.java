@@ -0,0 +1,77 @@
+package me.jellysquid.mods.sodium.client.world.cloned;
+
+import net.minecraft.world.chunk.ChunkNibbleArray;
+
+/**
+ * An immutable copy of the light levels in a {@link ChunkNibbleArray}. Snapshots are cached by the array they were
+ * taken from until it is modified, so every section which is cloned in the meantime shares the same copy instead of
+ * copying the array again. The array only refers to its snapshot weakly, so the copy is released once no cloned
+ * section uses it anymore.
+ *
+ * Sections where every block has the same light level share one of the constant snapshots instead of keeping a copy of
+ * their own, which covers sections that are either completely dark or completely exposed to the sky.
+ */
+public final class LightDataSnapshot {
+    public static final LightDataSnapshot DARK = new LightDataSnapshot(null, 0);
+    public static final LightDataSnapshot FULL_BRIGHT = new LightDataSnapshot(null, 15);
+
+    private static final int BYTES = 2048;
+
+    // The light levels of each block packed into nibbles, or null if every block has the uniform light level
+    private final byte[] data;
+    private final int uniformLevel;
+
+    private LightDataSnapshot(byte[] data, int uniformLevel) {
+        this.data = data;
+        this.uniformLevel = uniformLevel;
+    }
+
+    /**
+     * Takes a snapshot of the given light data. If the data is being modified by another thread while the snapshot is
+     * taken, the snapshot might only contain some of the changes, but the array will no longer be considered unchanged
+     * since the snapshot was taken, and the modification will schedule another rebuild.
+     *
+     * @param bytes The packed light levels of the array, or null if the array hasn't been initialized
+     */
+    public static LightDataSnapshot create(byte[] bytes) {
+        if (bytes == null) {
+            return DARK;
+        }
+
+        byte[] copy = bytes.clone();
+
+        if (isFilledWith(copy, (byte) 0x00)) {
+            return DARK;
+        } else if (isFilledWith(copy, (byte) 0xFF)) {
+            return FULL_BRIGHT;
+        }
+
+        return new LightDataSnapshot(copy, 0);
+    }
+
+    private static boolean isFilledWith(byte[] bytes, byte value) {
+        if (bytes.length != BYTES) {
+            return false;
+        }
+
+        for (byte b : bytes) {
+            if (b != value) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int get(int x, int y, int z) {
+        byte[] data = this.data;
+
+        if (data == null) {
+            return this.uniformLevel;
+        }
+
+        int index = y << 8 | z << 4 | x;
+
+        return (data[index >> 1] >> ((index & 1) << 2)) & 15;
+    }
+}
@@ -1,7 +1,12 @@
 package me.jellysquid.mods.sodium.client.world.cloned;
 
-import me.jellysquid.mods.sodium.client.world.cloned.palette.ClonedPalette;
-
 public interface PackedIntegerArrayExtended {
-    <T> void copyUsingPalette(T[] out, ClonedPalette<T> palette);
+    /**
+     * Unpacks the values in the given range of indices into the same indices of the output array. Only the range is
+     * decoded, so this can be used to copy part of the array without visiting every element.
+     *
+     * @param fromIndex The first index to unpack (inclusive)
+     * @param toIndex The last index to unpack (exclusive)
+     */
+    void unpack(int[] out, int fromIndex, int toIndex);
 }
@@ -2,4 +2,14 @@ package me.jellysquid.mods.sodium.client.world.cloned.palette;
 
 public interface ClonedPalette<K> {
     K get(int id);
+
+    /**
+     * @return The raw ID of the value at the given index of the palette, from the global ID list of its values
+     */
+    int getRawId(int id);
+
+    /**
+     * Replaces the palette indices in the given range of the array with the raw IDs of their values.
+     */
+    void resolveRawIds(int[] ids, int fromIndex, int toIndex);
 }
@@ -13,4 +13,15 @@ public class ClonedPaletteFallback<K> implements ClonedPalette<K> {
     public K get(int id) {
         return this.idList.get(id);
     }
+
+    @Override
+    public int getRawId(int id) {
+        // The indices of this palette are the raw IDs themselves
+        return id;
+    }
+
+    @Override
+    public void resolveRawIds(int[] ids, int fromIndex, int toIndex) {
+        // The indices of this palette are the raw IDs themselves
+    }
 }
@@ -1,12 +1,19 @@
 package me.jellysquid.mods.sodium.client.world.cloned.palette;
 
+import net.minecraft.util.collection.IdList;
 import org.apache.commons.lang3.Validate;
 
 public class ClonedPalleteArray<K> implements ClonedPalette<K> {
     private final K[] array;
+    private final int[] rawIds;
 
-    public ClonedPalleteArray(K[] array) {
+    public ClonedPalleteArray(K[] array, IdList<K> idList) {
         this.array = array;
+        this.rawIds = new int[array.length];
+
+        for (int i = 0; i < array.length; i++) {
+            this.rawIds[i] = idList.getRawId(array[i]);
+        }
     }
 
     @Override
@@ -14,4 +21,18 @@ public class ClonedPalleteArray<K> implements ClonedPalette<K> {
         // TODO: Remove this check?
         return Validate.notNull(this.array[id]);
     }
+
+    @Override
+    public int getRawId(int id) {
+        return this.rawIds[id];
+    }
+
+    @Override
+    public void resolveRawIds(int[] ids, int fromIndex, int toIndex) {
+        int[] rawIds = this.rawIds;
+
+        for (int i = fromIndex; i < toIndex; i++) {
+            ids[i] = rawIds[ids[i]];
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package me.jellysquid.mods.sodium.mixin.features.chunk_rendering;
+
+import me.jellysquid.mods.sodium.client.world.cloned.ChunkNibbleArrayExtended;
+import me.jellysquid.mods.sodium.client.world.cloned.LightDataSnapshot;
+import net.minecraft.world.chunk.ChunkNibbleArray;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.lang.ref.WeakReference;
+
+@Mixin(ChunkNibbleArray.class)
+public class MixinChunkNibbleArray implements ChunkNibbleArrayExtended {
+    @Shadow
+    @Nullable
+    protected byte[] bytes;
+
+    // Incremented by the light engine whenever the array is modified. This isn't synchronized with the readers, so
+    // they may briefly see an older count, but every modification also schedules a rebuild of the section.
+    @Unique
+    private int version;
+
+    // The last snapshot is only kept while the cloned sections which use it are alive, so that the arrays don't keep a
+    // second copy of their light data for as long as they are loaded
+    @Unique
+    private WeakReference<LightDataSnapshot> snapshot;
+
+    @Unique
+    private int snapshotVersion;
+
+    @Inject(method = "set(II)V", at = @At("HEAD"))
+    private void onModified(int index, int value, CallbackInfo ci) {
+        this.version++;
+    }
+
+    @Override
+    public synchronized LightDataSnapshot getSnapshot() {
+        int version = this.version;
+        LightDataSnapshot snapshot = this.snapshot != null && this.snapshotVersion == version ? this.snapshot.get() : null;
+
+        if (snapshot == null) {
+            snapshot = LightDataSnapshot.create(this.bytes);
+
+            this.snapshot = new WeakReference<>(snapshot);
+            this.snapshotVersion = version;
+        }
+
+        return snapshot;
+    }
+}
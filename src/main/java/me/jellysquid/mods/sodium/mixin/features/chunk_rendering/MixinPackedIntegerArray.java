@@ -1,7 +1,6 @@
 package me.jellysquid.mods.sodium.mixin.features.chunk_rendering;
 
 import me.jellysquid.mods.sodium.client.world.cloned.PackedIntegerArrayExtended;
-import me.jellysquid.mods.sodium.client.world.cloned.palette.ClonedPalette;
 import net.minecraft.util.collection.PackedIntegerArray;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -30,20 +29,72 @@ public class MixinPackedIntegerArray implements PackedIntegerArrayExtended {
     private int size;
 
     @Override
-    public <T> void copyUsingPalette(T[] out, ClonedPalette<T> palette) {
-        int idx = 0;
+    public void unpack(int[] out, int fromIndex, int toIndex) {
+        // Values never span two words, so each word can be decoded on its own. The most common widths are
+        // specialised so that their loops can be fully unrolled.
+        switch (this.elementBits) {
+            case 4 -> unpack4(this.data, out, fromIndex, toIndex);
+            case 8 -> unpack8(this.data, out, fromIndex, toIndex);
+            default -> unpack(this.data, this.elementBits, this.elementsPerLong, (int) this.maxValue, out, fromIndex, toIndex);
+        }
+    }
+
+    private static void unpack(long[] data, int bits, int valuesPerWord, int mask, int[] out, int fromIndex, int toIndex) {
+        int index = fromIndex;
+        int wordIndex = index / valuesPerWord;
+        int offset = index - (wordIndex * valuesPerWord);
+
+        while (index < toIndex) {
+            long word = data[wordIndex++] >>> (offset * bits);
+            int end = Math.min(index + (valuesPerWord - offset), toIndex);
+
+            for (; index < end; index++) {
+                out[index] = (int) word & mask;
+                word >>>= bits;
+            }
 
-        for (long word : this.data) {
-            long l = word;
+            offset = 0;
+        }
+    }
+
+    private static void unpack4(long[] data, int[] out, int fromIndex, int toIndex) {
+        int index = fromIndex;
 
-            for (int j = 0; j < this.elementsPerLong; ++j) {
-                out[idx] = palette.get((int) (l & this.maxValue));
-                l >>= this.elementBits;
+        // Decode values one at a time until the start of a word is reached
+        for (; index < toIndex && (index & 15) != 0; index++) {
+            out[index] = (int) (data[index >> 4] >>> ((index & 15) << 2)) & 0xF;
+        }
+
+        for (; index + 16 <= toIndex; index += 16) {
+            long word = data[index >> 4];
 
-                if (++idx >= this.size) {
-                    return;
-                }
+            for (int j = 0; j < 16; j++) {
+                out[index + j] = (int) (word >>> (j << 2)) & 0xF;
             }
         }
+
+        for (; index < toIndex; index++) {
+            out[index] = (int) (data[index >> 4] >>> ((index & 15) << 2)) & 0xF;
+        }
+    }
+
+    private static void unpack8(long[] data, int[] out, int fromIndex, int toIndex) {
+        int index = fromIndex;
+
+        for (; index < toIndex && (index & 7) != 0; index++) {
+            out[index] = (int) (data[index >> 3] >>> ((index & 7) << 3)) & 0xFF;
+        }
+
+        for (; index + 8 <= toIndex; index += 8) {
+            long word = data[index >> 3];
+
+            for (int j = 0; j < 8; j++) {
+                out[index + j] = (int) (word >>> (j << 3)) & 0xFF;
+            }
+        }
+
+        for (; index < toIndex; index++) {
+            out[index] = (int) (data[index >> 3] >>> ((index & 7) << 3)) & 0xFF;
+        }
     }
 }
@@ -147,12 +147,13 @@ public abstract class MixinWorldRenderer implements WorldRendererExtended {
     }
 
     /**
-     * @reason Redirect chunk updates to our renderer
+     * @reason Redirect chunk updates to our renderer. This is only called by the game when the light of a chunk section
+     * changes, so the surrounding sections only need their light updated.
      * @author JellySquid
      */
     @Overwrite
     public void scheduleBlockRenders(int x, int y, int z) {
-        this.renderer.scheduleRebuildForChunks(x - 1, y - 1, z - 1, x + 1, y + 1, z + 1, false);
+        this.renderer.scheduleLightUpdateForChunks(x - 1, y - 1, z - 1, x + 1, y + 1, z + 1);
     }
 
     /**
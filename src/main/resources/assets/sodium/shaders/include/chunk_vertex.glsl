@@ -7,18 +7,17 @@ vec2 _vert_tex_diffuse_coord;
 // The light texture coordinate of the vertex
 ivec2 _vert_tex_light_coord;
 
+#ifdef USE_TEXTURE_TILING
+// The position of the vertex in tiles of its sprite, and the size of the sprite, for quads with repeating textures
+ivec2 _vert_tex_tile_coord;
+#endif
+
 // The color of the vertex
 vec4 _vert_color;
 
 // The index of the draw command which this vertex belongs to
 uint _draw_id;
 
-#ifdef USE_VERTEX_COMPRESSION
-in vec4 a_PosId;
-in vec4 a_Color;
-in vec2 a_TexCoord;
-in ivec2 a_LightCoord;
-
 #if !defined(VERT_POS_SCALE)
 #error "VERT_POS_SCALE not defined"
 #elif !defined(VERT_POS_OFFSET)
@@ -27,17 +26,44 @@ in ivec2 a_LightCoord;
 #error "VERT_TEX_SCALE not defined"
 #endif
 
+#if defined(USE_VERTEX_COMPRESSION)
+in vec4 a_PosId;
+in vec4 a_Color;
+in vec2 a_TexCoord;
+in ivec2 a_LightCoord;
+
 void _vert_init() {
     _vert_position = (a_PosId.xyz * VERT_POS_SCALE + VERT_POS_OFFSET);
     _vert_tex_diffuse_coord = (a_TexCoord * VERT_TEX_SCALE);
-    _vert_tex_light_coord = a_LightCoord;
+    _vert_tex_light_coord = a_LightCoord & 0xFF;
+#ifdef USE_TEXTURE_TILING
+    _vert_tex_tile_coord = a_LightCoord >> 8;
+#endif
     _vert_color = a_Color;
 
     _draw_id = uint(a_PosId.w);
 }
 
+#elif defined(USE_COMPACT_VERTEX_FORMAT)
+in vec3 a_PosId;
+in vec4 a_Color; // The color components are not normalized, and the alpha component holds the chunk index
+in vec2 a_TexCoord;
+in ivec2 a_LightCoord;
+
+void _vert_init() {
+    _vert_position = (a_PosId * VERT_POS_SCALE + VERT_POS_OFFSET);
+    _vert_tex_diffuse_coord = (a_TexCoord * VERT_TEX_SCALE);
+    _vert_tex_light_coord = a_LightCoord;
+#ifdef USE_TEXTURE_TILING
+    _vert_tex_tile_coord = ivec2(0);
+#endif
+    _vert_color = vec4(a_Color.rgb * (1.0 / 255.0), 1.0);
+
+    _draw_id = uint(a_Color.a);
+}
+
 #else
-#error "Vertex compression must be enabled"
+#error "No vertex format defined"
 #endif
 
 // The translation vector of the current draw command